@@ -0,0 +1,31 @@
+package com.microblog.cluster;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.microblog.events.EventBus;
+import com.microblog.events.OutboxCodec;
+
+// domain events delivered on another node: replay them here as replicas so this node's caches, timelines and live feeds follow
+@Component
+public class ClusterDomainEventListener {
+
+  @Autowired
+  private OutboxCodec outboxCodec;
+
+  @Autowired
+  private EventBus eventBus;
+
+  @EventListener
+  public void onClusterEvent(ClusterEvent event) {
+    if (!event.isDomainEvent()) {
+      return;
+    }
+    // null for a new post that has since been deleted
+    Object domainEvent = outboxCodec.decode(event.type().name(), event.payload());
+    if (domainEvent != null) {
+      eventBus.publishReplica(domainEvent);
+    }
+  }
+}
@@ -0,0 +1,55 @@
+package com.microblog.cluster;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * An event relayed between backend nodes. Only ids travel; the receiving node
+ * loads whatever it needs from its own database connection.
+ * <ul>
+ * <li>NOTIFICATION: id is the notification id, target the recipient</li>
+ * <li>UNREAD_CHANGED: id is the user whose unread count changed</li>
+ * <li>LIKE, UNLIKE, FOLLOW, UNFOLLOW, POST_ADD, POST_DELETE: a domain event
+ * from the outbox, named by its outbox event type; id and target are the ids
+ * of its payload</li>
+ * </ul>
+ */
+public record ClusterEvent(Type type, String id, String target) {
+
+  public enum Type {
+    NOTIFICATION,
+    UNREAD_CHANGED,
+    LIKE,
+    UNLIKE,
+    FOLLOW,
+    UNFOLLOW,
+    POST_ADD,
+    POST_DELETE,
+  }
+
+  // the types that carry an outbox payload (see OutboxCodec)
+  public static final Set<Type> DOMAIN_EVENTS = EnumSet.of(
+      Type.LIKE, Type.UNLIKE, Type.FOLLOW, Type.UNFOLLOW, Type.POST_ADD, Type.POST_DELETE);
+
+  public static ClusterEvent notification(Object notificationId, String recipientId) {
+    return new ClusterEvent(Type.NOTIFICATION, notificationId.toString(), recipientId);
+  }
+
+  public static ClusterEvent unreadChanged(String userId) {
+    return new ClusterEvent(Type.UNREAD_CHANGED, userId, null);
+  }
+
+  public static ClusterEvent domainEvent(String eventType, String payload) {
+    String[] ids = payload.split(" ");
+    return new ClusterEvent(Type.valueOf(eventType), ids[0], ids.length > 1 ? ids[1] : null);
+  }
+
+  public boolean isDomainEvent() {
+    return DOMAIN_EVENTS.contains(type);
+  }
+
+  // the outbox payload a domain event was built from
+  public String payload() {
+    return target == null ? id : id + " " + target;
+  }
+}
@@ -0,0 +1,10 @@
+package com.microblog.cluster;
+
+/**
+ * Relays events to the other backend nodes, which receive them as a local
+ * {@link ClusterEvent} application event. Selected by {@code cluster.bus}.
+ */
+public interface ClusterEventBus {
+
+  void publish(ClusterEvent event);
+}
@@ -0,0 +1,63 @@
+package com.microblog.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Text encoding of event batches for NOTIFY: the sending node's id on the
+ * first line, then one event per line as {@code TYPE id [target]}. A batch is
+ * split into as many payloads as needed to stay under the size limit.
+ */
+final class ClusterPayloads {
+
+  record Decoded(String origin, List<ClusterEvent> events) {
+  }
+
+  private ClusterPayloads() {
+  }
+
+  static List<String> pack(String origin, List<ClusterEvent> events, int maxBytes) {
+    List<String> payloads = new ArrayList<>();
+    StringBuilder payload = new StringBuilder(origin);
+    int bytes = utf8Length(origin);
+    int count = 0;
+    for (ClusterEvent event : events) {
+      String line = encode(event);
+      int lineBytes = utf8Length(line) + 1;
+      if (count > 0 && bytes + lineBytes > maxBytes) {
+        payloads.add(payload.toString());
+        payload = new StringBuilder(origin);
+        bytes = utf8Length(origin);
+        count = 0;
+      }
+      payload.append('\n').append(line);
+      bytes += lineBytes;
+      count++;
+    }
+    if (count > 0) {
+      payloads.add(payload.toString());
+    }
+    return payloads;
+  }
+
+  static Decoded unpack(String payload) {
+    String[] lines = payload.split("\n");
+    List<ClusterEvent> events = new ArrayList<>(lines.length - 1);
+    for (int i = 1; i < lines.length; i++) {
+      String[] parts = lines[i].split(" ");
+      events.add(new ClusterEvent(ClusterEvent.Type.valueOf(parts[0]), parts[1], parts.length > 2 ? parts[2] : null));
+    }
+    return new Decoded(lines[0], events);
+  }
+
+  private static String encode(ClusterEvent event) {
+    return event.target() == null
+        ? event.type() + " " + event.id()
+        : event.type() + " " + event.id() + " " + event.target();
+  }
+
+  private static int utf8Length(String text) {
+    return text.getBytes(StandardCharsets.UTF_8).length;
+  }
+}
@@ -0,0 +1,14 @@
+package com.microblog.cluster;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+// single node: there is nobody to relay to
+@Component
+@ConditionalOnProperty(name = "cluster.bus", havingValue = "local", matchIfMissing = true)
+public class LocalClusterEventBus implements ClusterEventBus {
+
+  @Override
+  public void publish(ClusterEvent event) {
+  }
+}
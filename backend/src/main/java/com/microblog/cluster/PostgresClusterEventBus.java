@@ -0,0 +1,178 @@
+package com.microblog.cluster;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Cluster bus over Postgres LISTEN/NOTIFY. Outgoing events are queued and
+ * sent by one thread in batches, packed into payloads below
+ * {@code cluster.postgres.max-payload-bytes} (NOTIFY rejects 8000 bytes and
+ * more). A second thread holds a connection that LISTENs on the channel and
+ * republishes events from other nodes as local application events; a node
+ * ignores its own payloads.
+ */
+@Component
+@ConditionalOnProperty(name = "cluster.bus", havingValue = "postgres")
+public class PostgresClusterEventBus implements ClusterEventBus {
+
+  private final String nodeId = UUID.randomUUID().toString();
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private ApplicationEventPublisher applicationEventPublisher;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${cluster.postgres.channel:microblog_events}")
+  private String channel;
+
+  @Value("${cluster.postgres.max-payload-bytes:7900}")
+  private int maxPayloadBytes;
+
+  @Value("${cluster.postgres.batch-delay-ms:20}")
+  private long batchDelayMs;
+
+  @Value("${cluster.postgres.batch-max-size:500}")
+  private int batchMaxSize;
+
+  private final BlockingQueue<ClusterEvent> outgoing = new LinkedBlockingQueue<>();
+  private volatile boolean running;
+  private Thread sender;
+  private Thread listener;
+
+  private Counter sent;
+  private Counter received;
+  private Counter failed;
+
+  @PostConstruct
+  void start() {
+    if (!channel.matches("[a-z_][a-z0-9_]*")) {
+      throw new IllegalArgumentException("Invalid cluster.postgres.channel: " + channel);
+    }
+    sent = meterRegistry.counter("cluster.events.sent");
+    received = meterRegistry.counter("cluster.events.received");
+    failed = meterRegistry.counter("cluster.events.failed");
+    meterRegistry.gauge("cluster.events.queued", outgoing, BlockingQueue::size);
+
+    running = true;
+    sender = Thread.ofVirtual().name("cluster-notify").start(this::send);
+    listener = Thread.ofVirtual().name("cluster-listen").start(this::listen);
+  }
+
+  @PreDestroy
+  void stop() {
+    running = false;
+    sender.interrupt();
+    listener.interrupt();
+  }
+
+  @Override
+  public void publish(ClusterEvent event) {
+    outgoing.offer(event);
+  }
+
+  private void send() {
+    List<ClusterEvent> batch = new ArrayList<>(batchMaxSize);
+    while (running) {
+      try {
+        ClusterEvent first = outgoing.take();
+        batch.add(first);
+        // give a burst a moment to accumulate, then send it as few NOTIFYs as possible
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchDelayMs);
+        while (batch.size() < batchMaxSize) {
+          ClusterEvent next = outgoing.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+        for (String payload : ClusterPayloads.pack(nodeId, batch, maxPayloadBytes)) {
+          jdbcTemplate.query("SELECT pg_notify(?, ?)", (ResultSetExtractor<Void>) _ -> null, channel, payload);
+        }
+        sent.increment(batch.size());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (RuntimeException e) {
+        failed.increment(batch.size());
+        System.out.println("[PostgresClusterEventBus] failed to send " + batch.size() + " events: " + e.getMessage());
+      }
+      batch.clear();
+    }
+  }
+
+  private void listen() {
+    while (running) {
+      try (Connection connection = dataSource.getConnection()) {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        try (Statement statement = connection.createStatement()) {
+          statement.execute("LISTEN " + channel);
+        }
+        System.out.println("[PostgresClusterEventBus] node " + nodeId + " listening on " + channel);
+        while (running) {
+          PGNotification[] notifications = pgConnection.getNotifications(1000);
+          if (notifications == null) {
+            continue;
+          }
+          for (PGNotification notification : notifications) {
+            receive(notification.getParameter());
+          }
+        }
+      } catch (Exception e) {
+        if (!running) {
+          return;
+        }
+        System.out.println("[PostgresClusterEventBus] listener lost its connection: " + e.getMessage());
+        try {
+          Thread.sleep(1000);
+        } catch (InterruptedException interrupted) {
+          return;
+        }
+      }
+    }
+  }
+
+  private void receive(String payload) {
+    ClusterPayloads.Decoded decoded = ClusterPayloads.unpack(payload);
+    if (decoded.origin().equals(nodeId)) {
+      return;
+    }
+    for (ClusterEvent event : decoded.events()) {
+      received.increment();
+      try {
+        applicationEventPublisher.publishEvent(event);
+      } catch (RuntimeException e) {
+        System.out.println("[PostgresClusterEventBus] failed to handle " + event + ": " + e.getMessage());
+      }
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package com.microblog.config;
+
+/**
+ * A request the client got wrong (malformed cursor, out of range size, ...).
+ * Mapped to 400 by {@link GlobalExceptionHandler}; anything else stays a 500.
+ */
+public class BadRequestException extends RuntimeException {
+
+  public BadRequestException(String message) {
+    super(message);
+  }
+}
@@ -30,6 +30,14 @@ public class GlobalExceptionHandler {
     return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
   }
 
+  @ExceptionHandler(BadRequestException.class)
+  public ResponseEntity<?> handleBadRequest(BadRequestException ex, WebRequest request) {
+    Map<String, Object> body = new HashMap<>();
+    body.put("error", "Bad request");
+    body.put("message", ex.getMessage());
+    return new ResponseEntity<>(body, HttpStatus.BAD_REQUEST);
+  }
+
   @ExceptionHandler(Exception.class)
   public ResponseEntity<?> handleGeneralException(Exception ex, WebRequest request) {
     Map<String, Object> body = new HashMap<>();
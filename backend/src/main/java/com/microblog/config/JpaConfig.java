@@ -0,0 +1,19 @@
+package com.microblog.config;
+
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JpaConfig {
+
+  // JDBC batching for bulk writes such as the notification writer; explicit spring.jpa.properties still win
+  @Bean
+  HibernatePropertiesCustomizer batchingHibernateProperties() {
+    return properties -> {
+      properties.putIfAbsent("hibernate.jdbc.batch_size", 50);
+      properties.putIfAbsent("hibernate.order_inserts", true);
+      properties.putIfAbsent("hibernate.order_updates", true);
+    };
+  }
+}
@@ -4,11 +4,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.microblog.dto.CursorPage;
 import com.microblog.dto.PostView;
 import com.microblog.feedlive.FeedSseService;
 import com.microblog.services.CurrentUserService;
@@ -41,13 +43,27 @@ public class FeedController {
     return feedService.getFollowingFeed(page, size);
   }
 
+  @GetMapping("/public/cursor")
+  public CursorPage<PostView> getPublicFeedAfter(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") int size) {
+    return feedService.getPublicFeedAfter(cursor, size);
+  }
+
+  @GetMapping("/following/cursor")
+  public CursorPage<PostView> getFollowingFeedAfter(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") int size) {
+    return feedService.getFollowingFeedAfter(cursor, size);
+  }
+
   @GetMapping(value = "/subscribe/public", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-  public SseEmitter subscribePublic() {
-    return feedSseService.subscribePublicFeed(currentUser.getId());
+  public SseEmitter subscribePublic(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+    return feedSseService.subscribePublicFeed(currentUser.getId(), lastEventId);
   }
 
   @GetMapping(value = "/subscribe/following", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-  public SseEmitter subscribeFollowing() {
-    return feedSseService.subscribeFollowingFeed(currentUser.getId());
+  public SseEmitter subscribeFollowing(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+    return feedSseService.subscribeFollowingFeed(currentUser.getId(), lastEventId);
   }
 }
@@ -1,32 +1,50 @@
 package com.microblog.demo;
 
+import java.util.Set;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import com.microblog.events.EventBus;
 import com.microblog.events.LikeEvent;
 import com.microblog.events.UnlikeEvent;
 import com.microblog.models.Follows;
 
+import jakarta.annotation.PostConstruct;
+
 @Component
 public class PingEventSubscriber {
 
   @Autowired
   private SseService sseService;
 
+  @Autowired
+  private EventBus eventBus;
+
+  @PostConstruct
+  void subscribe() {
+    eventBus.subscribeOrigin("ping-demo", Set.of(LikeEvent.class, UnlikeEvent.class), event -> {
+      switch (event) {
+        case LikeEvent e -> onLikeEvent(e);
+        case UnlikeEvent e -> onUnlikeEvent(e);
+        default -> {
+        }
+      }
+    });
+  }
+
   @EventListener
   public void onPingEvent(PingEvent event) {
     sseService.sendPing(event.getMessage());
     System.out.println("onPingEvent: invoked");
   }
 
-  @EventListener
   public void onLikeEvent(LikeEvent event) {
     System.out.println("onLikeEvent: invoked");
     sseService.sendPing("onLikeEvent: invoked");
   }
 
-  @EventListener
   public void onUnlikeEvent(UnlikeEvent event) {
     System.out.println("onUnlikeEvent: invoked");
     sseService.sendPing("onUnlikeEvent: invoked");
@@ -0,0 +1,34 @@
+package com.microblog.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import com.microblog.config.BadRequestException;
+
+/**
+ * Position in a newest-first feed: the (createdAt, id) of the last item seen.
+ * Clients only ever see the opaque, url-safe encoded form.
+ */
+public record FeedCursor(LocalDateTime createdAt, UUID id) {
+
+  private static final char SEPARATOR = '|';
+
+  public String encode() {
+    String raw = createdAt.toString() + SEPARATOR + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static FeedCursor decode(String cursor) {
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = raw.indexOf(SEPARATOR);
+      return new FeedCursor(
+          LocalDateTime.parse(raw.substring(0, separator)),
+          UUID.fromString(raw.substring(separator + 1)));
+    } catch (RuntimeException e) {
+      throw new BadRequestException("Invalid feed cursor");
+    }
+  }
+}
@@ -1,6 +1,8 @@
 package com.microblog.dto;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import java.util.UUID;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -15,6 +17,8 @@ public class NotificationView {
   private UUID postId;
   private LocalDateTime createdAt;
   private boolean isRead;
+  private int actorCount = 1;
+  private List<String> sampleActorUsernames;
 
   public NotificationView() {
   }
@@ -30,6 +34,18 @@ public class NotificationView {
     this.isRead = isRead;
   }
 
+  // JPQL constructor projection used by NotificationRepository
+  public NotificationView(UUID id, NotificationType type, String actorUsername, String actorId,
+      UUID postId, LocalDateTime createdAt, boolean isRead, int actorCount, String sampleActors) {
+    this(id, type, actorUsername, actorId, postId, createdAt, isRead);
+    this.actorCount = actorCount;
+    this.sampleActorUsernames = sampleActorUsernames(actorUsername, sampleActors);
+  }
+
+  private static List<String> sampleActorUsernames(String actorUsername, String sampleActors) {
+    return sampleActors == null ? List.of(actorUsername) : Arrays.asList(sampleActors.split(","));
+  }
+
   public static NotificationView getNotificationView(Notification notification) {
 
     NotificationView nv = new NotificationView();
@@ -40,6 +56,8 @@ public class NotificationView {
     nv.postId = notification.getPost() != null ? notification.getPost().getId() : null;
     nv.createdAt = notification.getCreatedAt();
     nv.isRead = notification.isRead();
+    nv.actorCount = notification.getActorCount();
+    nv.sampleActorUsernames = sampleActorUsernames(nv.actorUsername, notification.getSampleActors());
 
     return nv;
   }
@@ -100,4 +118,20 @@ public class NotificationView {
   public void setRead(boolean read) {
     isRead = read;
   }
+
+  public int getActorCount() {
+    return actorCount;
+  }
+
+  public void setActorCount(int actorCount) {
+    this.actorCount = actorCount;
+  }
+
+  public List<String> getSampleActorUsernames() {
+    return sampleActorUsernames;
+  }
+
+  public void setSampleActorUsernames(List<String> sampleActorUsernames) {
+    this.sampleActorUsernames = sampleActorUsernames;
+  }
 }
@@ -3,13 +3,49 @@ package com.microblog.events;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.microblog.models.OutboxEvent;
+import com.microblog.repositories.OutboxRepository;
+
+/**
+ * Domain events are written to the outbox in the caller's transaction and
+ * delivered by {@link OutboxRelay} once it commits, so listeners never see
+ * uncommitted or rolled-back changes and don't add to request latency. Events
+ * the outbox doesn't know are published directly.
+ */
 @Component
 public class AppEventPublisher {
   @Autowired
   private ApplicationEventPublisher publisher;
 
+  @Autowired
+  private OutboxCodec outboxCodec;
+
+  @Autowired
+  private OutboxRepository outboxRepository;
+
+  @Autowired
+  private OutboxRelay outboxRelay;
+
   public void publish(Object event) {
-    publisher.publishEvent(event);
+    OutboxEvent row = outboxCodec.encode(event);
+    if (row == null) {
+      publisher.publishEvent(event);
+      return;
+    }
+
+    outboxRepository.save(row);
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      outboxRelay.wake();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        outboxRelay.wake();
+      }
+    });
   }
-}
\ No newline at end of file
+}
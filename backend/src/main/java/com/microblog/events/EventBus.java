@@ -0,0 +1,109 @@
+package com.microblog.events;
+
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-process bus for domain events, on an {@link EventRing} of
+ * {@code events.bus.buffer-size} slots. Each consumer subscribes for the event
+ * classes it handles and runs on its own thread, taking up to
+ * {@code events.bus.max-batch} events at a time. An event whose handler throws
+ * is counted in {@code events.bus.failed} and skipped; the rest of its batch
+ * still runs. Lag per consumer is exported as {@code events.bus.lag}.
+ * <p>
+ * Events replayed from other nodes are published with {@link #publishReplica};
+ * consumers keeping per-node state see them, while
+ * {@link #subscribeOrigin} consumers (side effects that must happen once per
+ * cluster, like writing notifications) only see events published here.
+ * {@link #subscribeReplicas} consumers only see the relayed ones, for state the
+ * originating node already updated synchronously.
+ */
+@Component
+public class EventBus {
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${events.bus.buffer-size:8192}")
+  private int bufferSize;
+
+  @Value("${events.bus.max-batch:256}")
+  private int maxBatch;
+
+  private EventRing ring;
+  private Counter publishedEvents;
+
+  @PostConstruct
+  void start() {
+    ring = new EventRing(bufferSize);
+    publishedEvents = meterRegistry.counter("events.bus.published");
+  }
+
+  @PreDestroy
+  void stop() {
+    ring.close();
+  }
+
+  // returns the event's sequence, for awaitConsumed
+  public long publish(Object event) {
+    long sequence = ring.publish(event);
+    publishedEvents.increment();
+    return sequence;
+  }
+
+  public void publishReplica(Object event) {
+    ring.publish(event, true);
+    publishedEvents.increment();
+  }
+
+  // blocks until every consumer is done with the event at sequence and everything before it
+  public void awaitConsumed(long sequence) throws InterruptedException {
+    while (!ring.isConsumed(sequence)) {
+      LockSupport.parkNanos(100_000);
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+    }
+  }
+
+  public void subscribe(String name, Set<Class<?>> types, Consumer<Object> handler) {
+    subscribe(name, types, EventRing.Source.ALL, handler);
+  }
+
+  public void subscribeOrigin(String name, Set<Class<?>> types, Consumer<Object> handler) {
+    subscribe(name, types, EventRing.Source.ORIGIN, handler);
+  }
+
+  public void subscribeReplicas(String name, Set<Class<?>> types, Consumer<Object> handler) {
+    subscribe(name, types, EventRing.Source.REPLICAS, handler);
+  }
+
+  private void subscribe(String name, Set<Class<?>> types, EventRing.Source source, Consumer<Object> handler) {
+    Counter failed = meterRegistry.counter("events.bus.failed", "consumer", name);
+    EventRing.Subscriber subscriber = ring.subscribe(name, types, source, maxBatch, events -> {
+      for (Object event : events) {
+        try {
+          handler.accept(event);
+        } catch (RuntimeException e) {
+          failed.increment();
+          System.out.println("[EventBus] " + name + " failed on " + event.getClass().getSimpleName() + ": "
+              + e.getMessage());
+        }
+      }
+    });
+    Gauge.builder("events.bus.lag", subscriber, EventRing.Subscriber::lag)
+        .tag("consumer", name)
+        .register(meterRegistry);
+  }
+}
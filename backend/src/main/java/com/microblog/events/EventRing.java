@@ -0,0 +1,191 @@
+package com.microblog.events;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Preallocated multi-producer ring of events read by any number of
+ * subscribers, each on its own thread with its own position. Publishing claims
+ * a sequence, stores the event in its slot and marks the slot published; it
+ * allocates nothing and only waits when the slowest subscriber is a full ring
+ * behind. Subscribers take every published event in order and hand the ones
+ * of their types to their handler in batches. An event can be marked as a
+ * replica (relayed from another node); subscribers choose whether they take
+ * replicas, events published here, or both.
+ */
+final class EventRing {
+
+  enum Source {
+    ALL, ORIGIN, REPLICAS;
+
+    boolean accepts(boolean replica) {
+      return this == ALL || (this == REPLICAS) == replica;
+    }
+  }
+
+  private final Object[] slots;
+  private final boolean[] replicas;
+  private final AtomicLongArray published;
+  private final int mask;
+  private final AtomicLong claimed = new AtomicLong(-1);
+  private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+  EventRing(int capacity) {
+    if (Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Event ring capacity must be a power of two: " + capacity);
+    }
+    slots = new Object[capacity];
+    replicas = new boolean[capacity];
+    published = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      published.set(i, -1);
+    }
+    mask = capacity - 1;
+  }
+
+  long publish(Object event) {
+    return publish(event, false);
+  }
+
+  long publish(Object event, boolean replica) {
+    long sequence = claimed.incrementAndGet();
+    long wrapPoint = sequence - slots.length;
+    while (wrapPoint > slowestSubscriber(sequence)) {
+      LockSupport.parkNanos(1_000);
+    }
+    int index = (int) (sequence & mask);
+    slots[index] = event;
+    replicas[index] = replica;
+    published.set(index, sequence);
+
+    // published is written before sleeping is read, and the other way round in the subscriber, so none is left parked
+    for (Subscriber subscriber : subscribers) {
+      if (subscriber.sleeping) {
+        LockSupport.unpark(subscriber.thread);
+      }
+    }
+    return sequence;
+  }
+
+  // whether every subscriber has got through sequence
+  boolean isConsumed(long sequence) {
+    return slowestSubscriber(sequence) >= sequence;
+  }
+
+  // highest sequence claimed so far
+  long cursor() {
+    return claimed.get();
+  }
+
+  /**
+   * Starts a subscriber at the current end of the ring. The list passed to
+   * {@code handler} is reused between batches and must not be kept.
+   */
+  Subscriber subscribe(String name, Set<Class<?>> types, int maxBatch, Consumer<List<Object>> handler) {
+    return subscribe(name, types, Source.ALL, maxBatch, handler);
+  }
+
+  Subscriber subscribe(String name, Set<Class<?>> types, Source source, int maxBatch,
+      Consumer<List<Object>> handler) {
+    Subscriber subscriber = new Subscriber(name, types, source, maxBatch, handler, claimed.get());
+    subscribers.add(subscriber);
+    subscriber.thread = Thread.ofVirtual().name("events-" + name).start(subscriber::run);
+    return subscriber;
+  }
+
+  void close() {
+    for (Subscriber subscriber : subscribers) {
+      subscriber.running = false;
+      LockSupport.unpark(subscriber.thread);
+    }
+    subscribers.clear();
+  }
+
+  private long slowestSubscriber(long fallback) {
+    long min = fallback;
+    for (Subscriber subscriber : subscribers) {
+      min = Math.min(min, subscriber.sequence.get());
+    }
+    return min;
+  }
+
+  final class Subscriber {
+
+    private final String name;
+    private final Set<Class<?>> types;
+    private final Source source;
+    private final int maxBatch;
+    private final Consumer<List<Object>> handler;
+    private final AtomicLong sequence;
+    private final List<Object> batch;
+    private volatile boolean sleeping;
+    private volatile boolean running = true;
+    private Thread thread;
+
+    private Subscriber(String name, Set<Class<?>> types, Source source, int maxBatch,
+        Consumer<List<Object>> handler, long start) {
+      this.name = name;
+      this.types = types;
+      this.source = source;
+      this.maxBatch = maxBatch;
+      this.handler = handler;
+      this.sequence = new AtomicLong(start);
+      this.batch = new ArrayList<>(maxBatch);
+    }
+
+    String name() {
+      return name;
+    }
+
+    // published events this subscriber has not got through yet
+    long lag() {
+      return Math.max(0, claimed.get() - sequence.get());
+    }
+
+    private void run() {
+      while (running) {
+        long last = sequence.get();
+        int scanned = 0;
+        while (batch.size() < maxBatch && scanned < slots.length) {
+          long next = last + 1;
+          int index = (int) (next & mask);
+          if (published.get(index) != next) {
+            break;
+          }
+          Object event = slots[index];
+          if (types.contains(event.getClass()) && source.accepts(replicas[index])) {
+            batch.add(event);
+          }
+          last = next;
+          scanned++;
+        }
+
+        if (scanned > 0) {
+          if (!batch.isEmpty()) {
+            try {
+              handler.accept(batch);
+            } catch (RuntimeException e) {
+              System.out.println("[EventRing] " + name + " failed on a batch of " + batch.size() + ": " + e.getMessage());
+            }
+            batch.clear();
+          }
+          sequence.set(last);
+          continue;
+        }
+
+        sleeping = true;
+        long next = sequence.get() + 1;
+        if (published.get((int) (next & mask)) != next) {
+          LockSupport.park(this);
+        }
+        sleeping = false;
+      }
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.microblog.events;
+
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.microblog.models.Follows;
+import com.microblog.models.Like;
+import com.microblog.models.OutboxEvent;
+import com.microblog.models.Post;
+import com.microblog.repositories.PostRepository;
+import com.microblog.repositories.UserRepository;
+
+/**
+ * Turns domain events into outbox rows holding only ids, and back. Decoding
+ * rebuilds the event with entity references, except for a new post, which is
+ * loaded so live feeds can render it. The aggregate is the post for likes and
+ * posts and the followee for follows.
+ * <p>
+ * Decoded {@link Like} and {@link Follows} events are id-only: their users
+ * and post are unloaded references, so consumers may read their ids but
+ * anything else would hit the database, outside any transaction.
+ */
+@Component
+public class OutboxCodec {
+
+  @Autowired
+  private PostRepository postRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  // null for events that don't go through the outbox
+  public OutboxEvent encode(Object event) {
+    return switch (event) {
+      case LikeEvent e -> like("LIKE", e.getLike());
+      case UnlikeEvent e -> like("UNLIKE", e.getLike());
+      case FollowEvent e -> follow("FOLLOW", e.getFollows());
+      case UnfollowEvent e -> follow("UNFOLLOW", e.getFollows());
+      case PostAddEvent e -> new OutboxEvent("POST_ADD", e.getPost().getId().toString(), e.getPost().getId().toString());
+      case PostDeleteEvent e -> new OutboxEvent("POST_DELETE", e.getPost().getId().toString(),
+          e.getPost().getId() + " " + e.getPost().getAuthor().getId());
+      default -> null;
+    };
+  }
+
+  // null when the event no longer applies (a new post that has since been deleted)
+  public Object decode(String eventType, String payload) {
+    String[] ids = payload.split(" ");
+    return switch (eventType) {
+      case "LIKE" -> new LikeEvent(like(ids));
+      case "UNLIKE" -> new UnlikeEvent(like(ids));
+      case "FOLLOW" -> new FollowEvent(follows(ids));
+      case "UNFOLLOW" -> new UnfollowEvent(follows(ids));
+      case "POST_ADD" -> postRepository.findById(UUID.fromString(ids[0])).map(PostAddEvent::new).orElse(null);
+      case "POST_DELETE" -> {
+        Post post = new Post();
+        post.setId(UUID.fromString(ids[0]));
+        post.setAuthor(userRepository.getReferenceById(ids[1]));
+        yield new PostDeleteEvent(post);
+      }
+      default -> throw new IllegalArgumentException("Unknown outbox event type: " + eventType);
+    };
+  }
+
+  private static OutboxEvent like(String type, Like like) {
+    return new OutboxEvent(type, like.getId().getPostId().toString(),
+        like.getId().getUserId() + " " + like.getId().getPostId());
+  }
+
+  private static OutboxEvent follow(String type, Follows follows) {
+    return new OutboxEvent(type, follows.getId().getFolloweeId(),
+        follows.getId().getFollowerId() + " " + follows.getId().getFolloweeId());
+  }
+
+  private Like like(String[] ids) {
+    return new Like(userRepository.getReferenceById(ids[0]), postRepository.getReferenceById(UUID.fromString(ids[1])));
+  }
+
+  private Follows follows(String[] ids) {
+    return new Follows(userRepository.getReferenceById(ids[0]), userRepository.getReferenceById(ids[1]));
+  }
+}
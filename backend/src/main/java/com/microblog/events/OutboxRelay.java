@@ -0,0 +1,236 @@
+package com.microblog.events;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.microblog.cluster.ClusterEvent;
+import com.microblog.cluster.ClusterEventBus;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Delivers outbox rows to the {@link EventBus} and, for the other nodes, the
+ * cluster bus, then deletes them. Rows are read in id order, batch by batch,
+ * by a single node at a time (the one holding a session advisory lock). Ids
+ * are assigned at insert, not at commit, so a transaction that commits late
+ * can still have its row delivered after a later id of the same aggregate. A
+ * row is deleted only after every {@link EventBus} consumer has handled its
+ * event, so a crash in between redelivers it: at least once.
+ * <p>
+ * A row that fails to decode stays in the table and is retried after a
+ * growing delay; after {@code outbox.relay.max-attempts} it is left there as a
+ * dead letter. Until it is delivered or dead-lettered, the later rows of its
+ * aggregate are held back, in the same batch and in the ones after it.
+ * <p>
+ * The relay is woken as soon as a transaction that wrote to the outbox
+ * commits, and polls every {@code outbox.relay.poll-ms} otherwise.
+ */
+@Component
+public class OutboxRelay {
+
+  private static final long LOCK_KEY = 0x6f7574626f78L;
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private OutboxCodec outboxCodec;
+
+  @Autowired
+  private EventBus eventBus;
+
+  @Autowired
+  private ClusterEventBus clusterEventBus;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${outbox.relay.batch-size:100}")
+  private int batchSize;
+
+  @Value("${outbox.relay.poll-ms:1000}")
+  private long pollMs;
+
+  @Value("${outbox.relay.max-attempts:10}")
+  private int maxAttempts;
+
+  private record Row(long id, String aggregateId, String eventType, String payload, int attempts) {
+  }
+
+  private final Semaphore wakeups = new Semaphore(0);
+  private volatile boolean running;
+  private Thread relay;
+  private long lastPublished = -1;
+
+  private Counter delivered;
+  private Counter failed;
+  private Counter deadLettered;
+  private Timer batchTimer;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    delivered = meterRegistry.counter("outbox.relay.delivered");
+    failed = meterRegistry.counter("outbox.relay.failed");
+    deadLettered = meterRegistry.counter("outbox.relay.dead-lettered");
+    batchTimer = meterRegistry.timer("outbox.relay.batch");
+    running = true;
+    relay = Thread.ofVirtual().name("outbox-relay").start(this::run);
+  }
+
+  @PreDestroy
+  void stop() {
+    running = false;
+    if (relay != null) {
+      relay.interrupt();
+    }
+  }
+
+  public void wake() {
+    wakeups.release();
+  }
+
+  private void run() {
+    while (running) {
+      try (Connection connection = dataSource.getConnection()) {
+        connection.setAutoCommit(true);
+        while (running && !tryLock(connection)) {
+          awaitWork();
+        }
+        while (running) {
+          if (relayBatch(connection) < batchSize) {
+            awaitWork();
+          }
+        }
+      } catch (SQLException e) {
+        System.out.println("[OutboxRelay] lost its connection: " + e.getMessage());
+        awaitWork();
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  private void awaitWork() {
+    try {
+      wakeups.tryAcquire(pollMs, TimeUnit.MILLISECONDS);
+      wakeups.drainPermits();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+
+  private boolean tryLock(Connection connection) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+      statement.setLong(1, LOCK_KEY);
+      try (ResultSet rs = statement.executeQuery()) {
+        return rs.next() && rs.getBoolean(1);
+      }
+    }
+  }
+
+  private int relayBatch(Connection connection) throws SQLException, InterruptedException {
+    List<Row> rows = new ArrayList<>(batchSize);
+    // an earlier row of the same aggregate still waiting for a retry holds the later ones back
+    try (PreparedStatement statement = connection.prepareStatement(
+        "SELECT o.id, o.aggregate_id, o.event_type, o.payload, o.attempts FROM outbox o"
+            + " WHERE o.attempts < ? AND (o.retry_at IS NULL OR o.retry_at <= now())"
+            + " AND NOT EXISTS (SELECT 1 FROM outbox f WHERE f.aggregate_id = o.aggregate_id AND f.id < o.id"
+            + " AND f.attempts > 0 AND f.attempts < ?)"
+            + " ORDER BY o.id LIMIT ?")) {
+      statement.setInt(1, maxAttempts);
+      statement.setInt(2, maxAttempts);
+      statement.setInt(3, batchSize);
+      try (ResultSet rs = statement.executeQuery()) {
+        while (rs.next()) {
+          rows.add(new Row(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getInt(5)));
+        }
+      }
+    }
+    if (rows.isEmpty()) {
+      return 0;
+    }
+
+    long start = System.nanoTime();
+    List<Long> deliveredIds = new ArrayList<>(rows.size());
+    List<Long> failedIds = new ArrayList<>();
+    Set<String> heldBack = new HashSet<>();
+    for (Row row : rows) {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      if (heldBack.contains(row.aggregateId())) {
+        // left untouched; the query holds it back until the failed row is through
+        continue;
+      }
+      if (deliver(row)) {
+        deliveredIds.add(row.id());
+      } else {
+        failedIds.add(row.id());
+        if (row.attempts() + 1 >= maxAttempts) {
+          deadLettered.increment();
+        } else {
+          heldBack.add(row.aggregateId());
+        }
+      }
+    }
+
+    // by id, not by range: a transaction that commits late can leave a smaller id behind
+    if (!deliveredIds.isEmpty()) {
+      eventBus.awaitConsumed(lastPublished);
+      try (PreparedStatement statement = connection.prepareStatement("DELETE FROM outbox WHERE id = ANY(?)")) {
+        statement.setArray(1, connection.createArrayOf("bigint", deliveredIds.toArray()));
+        statement.executeUpdate();
+      }
+    }
+    if (!failedIds.isEmpty()) {
+      try (PreparedStatement statement = connection.prepareStatement(
+          "UPDATE outbox SET attempts = attempts + 1, retry_at = now() + (attempts + 1) * interval '1 second'"
+              + " WHERE id = ANY(?)")) {
+        statement.setArray(1, connection.createArrayOf("bigint", failedIds.toArray()));
+        statement.executeUpdate();
+      }
+    }
+    batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    return rows.size();
+  }
+
+  // false when the row has to be retried
+  private boolean deliver(Row row) {
+    try {
+      Object event = outboxCodec.decode(row.eventType(), row.payload());
+      if (event != null) {
+        lastPublished = eventBus.publish(event);
+        // every node keeps its own caches, follower index, timelines and live feeds
+        clusterEventBus.publish(ClusterEvent.domainEvent(row.eventType(), row.payload()));
+      }
+      delivered.increment();
+      return true;
+    } catch (RuntimeException e) {
+      // one failing row must not hold up the other aggregates
+      failed.increment();
+      System.out.println("[OutboxRelay] failed to deliver outbox row " + row.id() + " (" + row.eventType()
+          + ", attempt " + (row.attempts() + 1) + "): " + e.getMessage());
+      return false;
+    }
+  }
+}
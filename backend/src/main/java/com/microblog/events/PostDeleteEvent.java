@@ -0,0 +1,15 @@
+package com.microblog.events;
+
+import com.microblog.models.Post;
+
+public class PostDeleteEvent {
+  private final Post post;
+
+  public PostDeleteEvent(Post post) {
+    this.post = post;
+  }
+
+  public Post getPost() {
+    return post;
+  }
+}
@@ -1,17 +1,30 @@
 package com.microblog.feedlive;
 
+import java.util.Set;
+
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import com.microblog.events.EventBus;
 import com.microblog.events.PostAddEvent;
 
+import jakarta.annotation.PostConstruct;
+
+// the bus consumer thread keeps posts in order and takes fan-out off the request that created the post
 @Component
 public class FeedEventListener {
   @Autowired
   private FeedSseService feedSseService;
 
-  @EventListener
+  @Autowired
+  private EventBus eventBus;
+
+  @PostConstruct
+  void subscribe() {
+    eventBus.subscribe("feed-live", Set.of(PostAddEvent.class),
+        event -> onPostAddEvent((PostAddEvent) event));
+  }
+
   public void onPostAddEvent(PostAddEvent postAddEvent) {
     feedSseService.pushNewPost(postAddEvent);
   }
@@ -1,89 +1,115 @@
 package com.microblog.feedlive;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.microblog.events.PostAddEvent;
-import com.microblog.models.User;
-import com.microblog.services.FollowsService;
+import com.microblog.repositories.FollowsRepository;
+import com.microblog.sse.PreFramedEvent;
+import com.microblog.sse.SseConnection;
+import com.microblog.sse.SseConnections;
+import com.microblog.sse.SseEvent;
+import com.microblog.sse.SseRegistry;
+import com.microblog.sse.SseReplay;
+
+import jakarta.annotation.PostConstruct;
 
 @Service
 public class FeedSseService {
 
   @Autowired
-  private FollowsService followsService;
+  private FollowerIndex followerIndex;
+
+  @Autowired
+  private FollowsRepository followsRepository;
+
+  @Autowired
+  private SseReplay sseReplay;
 
-  private final Map<String, SseEmitter> publicEmitters = new ConcurrentHashMap<>();
-  private final Map<String, SseEmitter> followingEmitters = new ConcurrentHashMap<>();
+  @Autowired
+  private ObjectMapper objectMapper;
 
-  private void registerEmitterCallbacks(Map<String, SseEmitter> map, String key, SseEmitter emitter) {
-    emitter.onCompletion(() -> map.remove(key));
-    emitter.onTimeout(() -> map.remove(key));
-    emitter.onError(_ -> map.remove(key));
+  private static String followingStream(String userId) {
+    return "following:" + userId;
   }
 
-  public SseEmitter subscribePublicFeed(String connectionId) {
-    SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
-    publicEmitters.put(connectionId, emitter);
-    registerEmitterCallbacks(publicEmitters, connectionId, emitter);
-    return emitter;
+  @Autowired
+  private SseConnections sseConnections;
+
+  private SseRegistry publicConnections;
+  private SseRegistry followingConnections;
+
+  // following-feed subscribers whose stream is still open or still replayable
+  private final Set<String> followingAudience = ConcurrentHashMap.newKeySet();
+
+  @PostConstruct
+  void createRegistries() {
+    publicConnections = sseConnections.newRegistry();
+    followingConnections = sseConnections.newRegistry();
+  }
+
+  // registered before the replay is read, so nothing recorded in between is lost; the connection drops the duplicates
+  private SseEmitter subscribe(SseRegistry registry, String stream, String userId, Supplier<List<SseEvent>> resume) {
+    SseConnection connection = sseConnections.open(stream, c -> registry.remove(userId, c));
+    registry.add(userId, connection);
+    connection.start(resume.get());
+    return connection.getEmitter();
+  }
+
+  public SseEmitter subscribePublicFeed(String userId, String lastEventId) {
+    return subscribe(publicConnections, "public:" + userId, userId, () -> sseReplay.resumePublic(lastEventId));
   }
 
-  public SseEmitter subscribeFollowingFeed(String userId) {
-    SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
-    followingEmitters.put(userId, emitter);
-    registerEmitterCallbacks(followingEmitters, userId, emitter);
+  // registered before joining the audience, so a concurrent fan-out can't prune the new subscriber
+  public SseEmitter subscribeFollowingFeed(String userId, String lastEventId) {
+    SseEmitter emitter = subscribe(followingConnections, followingStream(userId), userId,
+        () -> sseReplay.resume(followingStream(userId), lastEventId));
+    followingAudience.add(userId);
     return emitter;
   }
 
   private void sendJsonToPublic(Map<String, Object> payload) {
-    var disconnected = new ArrayList<String>();
-
-    for (var entry : publicEmitters.entrySet()) {
-      try {
-        entry.getValue().send(SseEmitter.event()
-            .name("NEW_POST")
-            .id(String.valueOf(System.currentTimeMillis()))
-            .data(payload));
-      } catch (IOException e) {
-        disconnected.add(entry.getKey());
-      }
+    PreFramedEvent frame;
+    try {
+      // encoded once, then only copied to each subscriber
+      frame = PreFramedEvent.encode(sseReplay.recordPublic("NEW_POST", payload), objectMapper);
+    } catch (IOException e) {
+      System.out.println("Error encoding public feed event: " + e.getMessage());
+      return;
     }
 
-    disconnected.forEach(publicEmitters::remove);
+    publicConnections.forEach(connection -> connection.send(frame));
   }
 
-  private void sendJsonToFollowers(String userid, Map<String, Object> payload) {
-    List<User> followers = followsService.getFollowers(userid);
-
-    if (followers == null || followers.isEmpty()) {
+  private void sendJsonToFollowers(String authorId, Map<String, Object> payload) {
+    if (!followerIndex.isLoaded()) {
+      followsRepository.findFollowerIds(authorId).forEach(followerId -> sendJsonToFollower(followerId, payload));
       return;
     }
+    followerIndex.forEachFollowerIn(authorId, followingAudience, followerId -> sendJsonToFollower(followerId, payload));
+  }
 
-    for (User follower : followers) {
-      SseEmitter emitter = followingEmitters.get(follower.getId());
-
-      if (emitter == null)
-        continue;
-
-      try {
-        emitter.send(
-            SseEmitter.event()
-                .name("following-feed")
-                .id(String.valueOf(System.currentTimeMillis()))
-                .data(payload));
-      } catch (IOException e) {
-        System.out.println("Error sending to follower " + follower.getId() + ": " + e.getMessage());
-        followingEmitters.remove(follower.getId());
+  private void sendJsonToFollower(String followerId, Map<String, Object> payload) {
+    String stream = followingStream(followerId);
+    if (!followingConnections.isConnected(followerId) && !sseReplay.isTracked(stream)) {
+      followingAudience.remove(followerId);
+      // the user may have subscribed between the check and the removal
+      if (followingConnections.isConnected(followerId)) {
+        followingAudience.add(followerId);
       }
+      return;
     }
+    SseEvent event = sseReplay.record(stream, "following-feed", payload);
+    followingConnections.send(followerId, event);
   }
 
   public void pingCheck() {
@@ -102,7 +128,8 @@ public class FeedSseService {
             "timestamp", post.getCreatedAt()));
 
     System.out.println(payload);
+    String authorId = post.getAuthor().getId();
     sendJsonToPublic(payload);
-    sendJsonToFollowers(post.getAuthor().getId(), payload);
+    sendJsonToFollowers(authorId, payload);
   }
 }
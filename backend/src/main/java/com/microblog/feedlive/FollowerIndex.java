@@ -0,0 +1,138 @@
+package com.microblog.feedlive;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import com.microblog.events.EventBus;
+import com.microblog.events.FollowEvent;
+import com.microblog.events.UnfollowEvent;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * In-memory reverse follow graph, author id -> follower ids, so live pushes
+ * find an author's online followers without querying follows. User ids are
+ * mapped to dense int ordinals once and follower sets hold only the ordinals.
+ * Loaded from the follows table on startup and kept current from
+ * FollowEvent/UnfollowEvent after they commit.
+ */
+@Component
+public class FollowerIndex {
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private EventBus eventBus;
+
+  private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+  private volatile String[] userIds = new String[1024];
+  private int nextOrdinal;
+
+  private final Map<String, FollowerSet> followersByAuthor = new ConcurrentHashMap<>();
+  private volatile boolean loaded;
+
+  @PostConstruct
+  void subscribe() {
+    eventBus.subscribe("follower-index", Set.of(FollowEvent.class, UnfollowEvent.class),
+        event -> {
+          switch (event) {
+            case FollowEvent e -> onFollowEvent(e);
+            case UnfollowEvent e -> onUnfollowEvent(e);
+            default -> {
+            }
+          }
+        });
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    jdbcTemplate.query("SELECT followee_id, follower_id FROM follows",
+        (RowCallbackHandler) rs -> add(rs.getString(1), rs.getString(2)));
+    loaded = true;
+  }
+
+  public boolean isLoaded() {
+    return loaded;
+  }
+
+  public void onFollowEvent(FollowEvent event) {
+    add(event.getFollows().getId().getFolloweeId(), event.getFollows().getId().getFollowerId());
+  }
+
+  public void onUnfollowEvent(UnfollowEvent event) {
+    FollowerSet followers = followersByAuthor.get(event.getFollows().getId().getFolloweeId());
+    Integer follower = ordinals.get(event.getFollows().getId().getFollowerId());
+    if (followers != null && follower != null) {
+      followers.remove(follower);
+    }
+  }
+
+  /**
+   * Calls {@code action} for each follower of {@code authorId} that is in
+   * {@code audience}, walking whichever of the two sets is smaller.
+   */
+  public void forEachFollowerIn(String authorId, Set<String> audience, Consumer<String> action) {
+    FollowerSet followers = followersByAuthor.get(authorId);
+    if (followers == null || audience.isEmpty()) {
+      return;
+    }
+
+    if (followers.size() <= audience.size()) {
+      // ordinals first: the names array read after them is at least as new, so it covers every one
+      int[] followerOrdinals = followers.toArray();
+      String[] names = userIds;
+      for (int ordinal : followerOrdinals) {
+        String followerId = names[ordinal];
+        if (audience.contains(followerId)) {
+          action.accept(followerId);
+        }
+      }
+      return;
+    }
+
+    for (String userId : audience) {
+      Integer ordinal = ordinals.get(userId);
+      if (ordinal != null && followers.contains(ordinal)) {
+        action.accept(userId);
+      }
+    }
+  }
+
+  private void add(String authorId, String followerId) {
+    followersByAuthor.computeIfAbsent(authorId, _ -> new FollowerSet()).add(ordinal(followerId));
+  }
+
+  // the name is stored before the ordinal is published, so a reader holding an ordinal always finds it
+  private int ordinal(String userId) {
+    Integer existing = ordinals.get(userId);
+    if (existing != null) {
+      return existing;
+    }
+    synchronized (this) {
+      existing = ordinals.get(userId);
+      if (existing != null) {
+        return existing;
+      }
+      int ordinal = nextOrdinal++;
+      String[] names = userIds;
+      if (ordinal == names.length) {
+        names = Arrays.copyOf(names, names.length * 2);
+      }
+      names[ordinal] = userId;
+      userIds = names;
+      ordinals.put(userId, ordinal);
+      return ordinal;
+    }
+  }
+}
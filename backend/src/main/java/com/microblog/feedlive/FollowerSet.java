@@ -0,0 +1,48 @@
+package com.microblog.feedlive;
+
+import java.util.Arrays;
+
+/**
+ * Sorted set of user ordinals (see {@link FollowerIndex}) packed into an
+ * int[], 4 bytes per follower instead of a boxed String in a hash set.
+ */
+final class FollowerSet {
+
+  private int[] ordinals = new int[4];
+  private int size;
+
+  synchronized boolean contains(int ordinal) {
+    return Arrays.binarySearch(ordinals, 0, size, ordinal) >= 0;
+  }
+
+  synchronized void add(int ordinal) {
+    int index = Arrays.binarySearch(ordinals, 0, size, ordinal);
+    if (index >= 0) {
+      return;
+    }
+    int insertAt = -index - 1;
+    if (size == ordinals.length) {
+      ordinals = Arrays.copyOf(ordinals, ordinals.length * 2);
+    }
+    System.arraycopy(ordinals, insertAt, ordinals, insertAt + 1, size - insertAt);
+    ordinals[insertAt] = ordinal;
+    size++;
+  }
+
+  synchronized void remove(int ordinal) {
+    int index = Arrays.binarySearch(ordinals, 0, size, ordinal);
+    if (index < 0) {
+      return;
+    }
+    System.arraycopy(ordinals, index + 1, ordinals, index, size - index - 1);
+    size--;
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  synchronized int[] toArray() {
+    return Arrays.copyOf(ordinals, size);
+  }
+}
@@ -4,7 +4,7 @@ import jakarta.persistence.*;
 import java.io.Serializable;
 
 @Entity
-@Table(name = "follows")
+@Table(name = "follows", indexes = @Index(name = "idx_follows_followee", columnList = "followee_id"))
 public class Follows implements Serializable {
 
   @EmbeddedId
@@ -14,13 +14,16 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 
 @Entity
 @EntityListeners(AuditingEntityListener.class)
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+    @Index(name = "idx_notifications_recipient_created", columnList = "recipient_id, created_at DESC")
+})
 public class Notification {
 
   @Id
@@ -32,15 +35,15 @@ public class Notification {
   @Column(nullable = false)
   private NotificationType type;
 
-  @ManyToOne(fetch = FetchType.EAGER)
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "recipient_id", nullable = false)
   private User recipient;
 
-  @ManyToOne(fetch = FetchType.EAGER)
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "actor_id", nullable = false)
   private User actor;
 
-  @ManyToOne(fetch = FetchType.EAGER)
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "post_id")
   private Post post;
 
@@ -51,6 +54,14 @@ public class Notification {
   @Column(nullable = false)
   private boolean isRead = false;
 
+  // grouped notifications ("alice and 42 others liked your post"): actor is the latest one
+  @Column(name = "actor_count", nullable = false, columnDefinition = "integer not null default 1")
+  private int actorCount = 1;
+
+  // usernames of the most recent actors, newest first, comma separated
+  @Column(name = "sample_actors", length = 512)
+  private String sampleActors;
+
   public enum NotificationType {
     FOLLOW,
     UNFOLLOW,
@@ -123,4 +134,20 @@ public class Notification {
   public void setRead(boolean read) {
     isRead = read;
   }
+
+  public int getActorCount() {
+    return actorCount;
+  }
+
+  public void setActorCount(int actorCount) {
+    this.actorCount = actorCount;
+  }
+
+  public String getSampleActors() {
+    return sampleActors;
+  }
+
+  public void setSampleActors(String sampleActors) {
+    this.sampleActors = sampleActors;
+  }
 }
\ No newline at end of file
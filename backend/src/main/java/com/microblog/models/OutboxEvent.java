@@ -0,0 +1,78 @@
+package com.microblog.models;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// a domain event written in the same transaction as the change it describes, until the relay delivers it
+@Entity
+@Table(name = "outbox", indexes = @Index(name = "idx_outbox_aggregate", columnList = "aggregate_id, id"))
+public class OutboxEvent {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(name = "aggregate_id", nullable = false)
+  private String aggregateId;
+
+  @Column(name = "event_type", nullable = false, length = 32)
+  private String eventType;
+
+  // the ids the event refers to, space separated
+  @Column(nullable = false, length = 512)
+  private String payload;
+
+  @Column(name = "created_at", nullable = false)
+  private LocalDateTime createdAt = LocalDateTime.now();
+
+  // failed deliveries so far; rows at outbox.relay.max-attempts are kept as dead letters
+  @Column(nullable = false, columnDefinition = "integer not null default 0")
+  private int attempts;
+
+  @Column(name = "retry_at")
+  private LocalDateTime retryAt;
+
+  public OutboxEvent() {
+  }
+
+  public OutboxEvent(String eventType, String aggregateId, String payload) {
+    this.eventType = eventType;
+    this.aggregateId = aggregateId;
+    this.payload = payload;
+  }
+
+  public Long getId() {
+    return id;
+  }
+
+  public String getAggregateId() {
+    return aggregateId;
+  }
+
+  public String getEventType() {
+    return eventType;
+  }
+
+  public String getPayload() {
+    return payload;
+  }
+
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+
+  public int getAttempts() {
+    return attempts;
+  }
+
+  public LocalDateTime getRetryAt() {
+    return retryAt;
+  }
+}
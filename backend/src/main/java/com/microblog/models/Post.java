@@ -9,6 +9,7 @@ import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonProperty;
 
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
@@ -17,6 +18,7 @@ import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -24,7 +26,10 @@ import jakarta.persistence.Table;
 
 @Entity
 @EntityListeners(AuditingEntityListener.class)
-@Table(name = "posts")
+@Table(name = "posts", indexes = {
+    @Index(name = "idx_posts_author_created", columnList = "author_id, created_at DESC"),
+    @Index(name = "idx_posts_created", columnList = "created_at DESC")
+})
 public class Post {
 
   @Id
@@ -43,6 +48,11 @@ public class Post {
   @JoinColumn(name = "author_id", nullable = false)
   private User author;
 
+  // maintained by LikeService in the same transaction as the like row
+  @Column(name = "like_count", nullable = false, columnDefinition = "bigint not null default 0")
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private long likeCount;
+
   @OneToMany(mappedBy = "post", cascade = CascadeType.ALL, orphanRemoval = true)
   @JsonManagedReference(value = "post-likes")
   private List<Like> likes = new ArrayList<>();
@@ -82,6 +92,14 @@ public class Post {
     this.createdAt = createdAt;
   }
 
+  public long getLikeCount() {
+    return likeCount;
+  }
+
+  public void setLikeCount(long likeCount) {
+    this.likeCount = likeCount;
+  }
+
   public List<Like> getLikes() {
     return likes;
   }
@@ -0,0 +1,95 @@
+package com.microblog.notifications;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.microblog.models.Notification.NotificationType;
+
+/**
+ * Tracks which notification row is still open for grouping. Notifications of
+ * the same type, recipient and post that arrive within
+ * {@code notifications.aggregation.window-ms} of the group being opened are
+ * folded into that row instead of creating new ones. The ids of the actors
+ * already counted on an open row are kept with it, so an actor who repeats an
+ * action (like, unlike, like) is counted once.
+ */
+@Component
+public class NotificationAggregator {
+
+  public record GroupKey(String recipientId, NotificationType type, UUID postId) {
+  }
+
+  private record OpenGroup(UUID notificationId, long closesAt, Set<String> actorIds) {
+  }
+
+  @Value("${notifications.aggregation.window-ms:600000}")
+  private long windowMs;
+
+  @Value("${notifications.aggregation.sample-size:3}")
+  private int sampleSize;
+
+  private final Map<GroupKey, OpenGroup> openGroups = new ConcurrentHashMap<>();
+
+  public UUID findOpenGroup(GroupKey key) {
+    OpenGroup group = openGroups.get(key);
+    if (group == null) {
+      return null;
+    }
+    if (group.closesAt() < System.currentTimeMillis()) {
+      openGroups.remove(key, group);
+      return null;
+    }
+    return group.notificationId();
+  }
+
+  public void open(GroupKey key, UUID notificationId, Collection<String> actorIds) {
+    Set<String> counted = ConcurrentHashMap.newKeySet();
+    counted.addAll(actorIds);
+    openGroups.put(key, new OpenGroup(notificationId, System.currentTimeMillis() + windowMs, counted));
+  }
+
+  // how many of the actors are new to the open group; they are counted from now on
+  public int countNewActors(GroupKey key, Collection<String> actorIds) {
+    OpenGroup group = openGroups.get(key);
+    if (group == null) {
+      return actorIds.size();
+    }
+    int added = 0;
+    for (String actorId : actorIds) {
+      if (group.actorIds().add(actorId)) {
+        added++;
+      }
+    }
+    return added;
+  }
+
+  public void close(GroupKey key) {
+    openGroups.remove(key);
+  }
+
+  // newest actors first, without repeats, capped at the sample size
+  public String mergeSamples(List<String> newestFirst, String existing) {
+    Set<String> samples = new LinkedHashSet<>(newestFirst);
+    if (existing != null && !existing.isEmpty()) {
+      samples.addAll(List.of(existing.split(",")));
+    }
+    List<String> capped = new ArrayList<>(samples).subList(0, Math.min(sampleSize, samples.size()));
+    return String.join(",", capped);
+  }
+
+  @Scheduled(fixedDelay = 60000)
+  public void expireClosedGroups() {
+    long now = System.currentTimeMillis();
+    openGroups.values().removeIf(group -> group.closesAt() < now);
+  }
+}
@@ -9,10 +9,13 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import com.microblog.dto.CursorPage;
 import com.microblog.dto.NotificationView;
 import com.microblog.services.CurrentUserService;
 
@@ -30,8 +33,15 @@ public class NotificationController {
   private CurrentUserService currentUser;
 
   @GetMapping
-  public List<NotificationView> getNotifications() {
-    return notificationService.getUserNotifications();
+  public List<NotificationView> getNotifications(@RequestParam(defaultValue = "50") int size) {
+    return notificationService.getUserNotifications(size);
+  }
+
+  @GetMapping("/cursor")
+  public CursorPage<NotificationView> getNotificationsAfter(
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "20") int size) {
+    return notificationService.getUserNotificationsAfter(cursor, size);
   }
 
   @GetMapping("/unread")
@@ -58,8 +68,8 @@ public class NotificationController {
   }
 
   @GetMapping(value = "/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-  public SseEmitter subscribe() {
-    return notificationSseService.subscribe(currentUser.getId());
+  public SseEmitter subscribe(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+    return notificationSseService.subscribe(currentUser.getId(), lastEventId);
   }
 
 }
@@ -0,0 +1,108 @@
+package com.microblog.notifications;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.microblog.models.Notification.NotificationType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Holds each notification request for {@code notifications.debounce.delay-ms}
+ * before handing it to the {@link NotificationDispatcher}. If the opposite
+ * action (LIKE/UNLIKE, FOLLOW/UNFOLLOW) by the same actor on the same target
+ * arrives meanwhile, both are dropped, so rapid toggling writes and pushes
+ * nothing.
+ */
+@Component
+public class NotificationDebouncer {
+
+  private record Key(String actorId, String recipientId, UUID postId) {
+  }
+
+  // identity matters: a release only fires for the exact request it was scheduled for
+  private static final class Pending {
+    private final NotificationRequest request;
+
+    Pending(NotificationRequest request) {
+      this.request = request;
+    }
+  }
+
+  @Autowired
+  private NotificationDispatcher notificationDispatcher;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${notifications.debounce.delay-ms:2000}")
+  private long delayMs;
+
+  private final Map<Key, Pending> pending = new ConcurrentHashMap<>();
+  private ScheduledExecutorService scheduler;
+  private Counter cancelled;
+  private Counter superseded;
+
+  @PostConstruct
+  void start() {
+    scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("notification-debounce").factory());
+    cancelled = meterRegistry.counter("notifications.debounce.cancelled");
+    superseded = meterRegistry.counter("notifications.debounce.superseded");
+    meterRegistry.gauge("notifications.debounce.pending", pending, Map::size);
+  }
+
+  @PreDestroy
+  void stop() {
+    scheduler.shutdownNow();
+    pending.values().forEach(p -> notificationDispatcher.submit(p.request));
+    pending.clear();
+  }
+
+  public void submit(NotificationRequest request) {
+    if (delayMs <= 0) {
+      notificationDispatcher.submit(request);
+      return;
+    }
+
+    Key key = new Key(request.actorId(), request.recipientId(), request.postId());
+    Pending next = new Pending(request);
+    Pending previous = pending.put(key, next);
+
+    if (previous != null && previous.request.type() == opposite(request.type())) {
+      // the two requests cancel out; nothing is left to deliver for this key
+      pending.remove(key, next);
+      cancelled.increment(2);
+      return;
+    }
+    if (previous != null) {
+      superseded.increment();
+    }
+    scheduler.schedule(() -> release(key, next), delayMs, TimeUnit.MILLISECONDS);
+  }
+
+  private void release(Key key, Pending scheduled) {
+    if (pending.remove(key, scheduled)) {
+      notificationDispatcher.submit(scheduled.request);
+    }
+  }
+
+  private static NotificationType opposite(NotificationType type) {
+    return switch (type) {
+      case LIKE -> NotificationType.UNLIKE;
+      case UNLIKE -> NotificationType.LIKE;
+      case FOLLOW -> NotificationType.UNFOLLOW;
+      case UNFOLLOW -> NotificationType.FOLLOW;
+    };
+  }
+}
@@ -0,0 +1,187 @@
+package com.microblog.notifications;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Micro-batching notification writer. Requests are queued off the request
+ * thread and a small set of virtual-thread workers drain them in batches of up
+ * to {@code notifications.batch.max-size}, waiting at most
+ * {@code notifications.batch.max-delay-ms} for a batch to fill. Each batch is
+ * persisted in one transaction and then pushed over SSE.
+ * <p>
+ * Each worker has its own queue, and every request of one group (recipient,
+ * type, post) goes to the same worker, so a grouped row only ever has one
+ * writer.
+ * <p>
+ * When the queue is full {@code notifications.async.rejection-policy} applies:
+ * {@code caller-runs} (default, back-pressure), {@code discard},
+ * {@code discard-oldest} or {@code abort}.
+ */
+@Component
+public class NotificationDispatcher {
+
+  @Autowired
+  private NotificationProcessor notificationProcessor;
+
+  @Autowired
+  private NotificationSseService notificationSseService;
+
+  @Autowired
+  private UnreadCounter unreadCounter;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${notifications.async.threads:4}")
+  private int threads;
+
+  @Value("${notifications.async.queue-capacity:10000}")
+  private int queueCapacity;
+
+  @Value("${notifications.async.rejection-policy:caller-runs}")
+  private String rejectionPolicy;
+
+  @Value("${notifications.batch.max-size:100}")
+  private int batchMaxSize;
+
+  @Value("${notifications.batch.max-delay-ms:50}")
+  private long batchMaxDelayMs;
+
+  private record Lane(BlockingQueue<NotificationRequest> queue, ReentrantLock writeLock) {
+  }
+
+  private final List<Lane> lanes = new ArrayList<>();
+  private final List<Thread> workers = new ArrayList<>();
+  private volatile boolean running;
+
+  private Counter rejected;
+  private Counter failed;
+  private DistributionSummary batchSizes;
+  private Timer flushTimer;
+
+  @PostConstruct
+  void start() {
+    if (!List.of("caller-runs", "discard", "discard-oldest", "abort").contains(rejectionPolicy)) {
+      throw new IllegalArgumentException("Unknown notifications.async.rejection-policy: " + rejectionPolicy);
+    }
+
+    rejected = meterRegistry.counter("notifications.dispatch.rejected");
+    failed = meterRegistry.counter("notifications.dispatch.failed");
+    batchSizes = meterRegistry.summary("notifications.batch.size");
+    flushTimer = meterRegistry.timer("notifications.batch.flush");
+    meterRegistry.gauge("notifications.dispatch.queued", lanes,
+        l -> l.stream().mapToInt(lane -> lane.queue().size()).sum());
+
+    running = true;
+    for (int i = 0; i < threads; i++) {
+      Lane lane = new Lane(new ArrayBlockingQueue<>(Math.max(1, queueCapacity / threads)), new ReentrantLock());
+      lanes.add(lane);
+      workers.add(Thread.ofVirtual().name("notification-writer-" + i).start(() -> drain(lane)));
+    }
+  }
+
+  @PreDestroy
+  void stop() throws InterruptedException {
+    running = false;
+    for (Thread worker : workers) {
+      worker.join(TimeUnit.SECONDS.toMillis(10));
+    }
+  }
+
+  public void submit(NotificationRequest request) {
+    Lane lane = laneOf(request);
+    if (lane.queue().offer(request)) {
+      return;
+    }
+    rejected.increment();
+    switch (rejectionPolicy) {
+      case "caller-runs" -> flush(lane, List.of(request));
+      case "discard-oldest" -> {
+        lane.queue().poll();
+        lane.queue().offer(request);
+      }
+      case "abort" -> throw new RejectedExecutionException("Notification queue is full");
+      default -> {
+      }
+    }
+  }
+
+  // a like's recipient is the post author, so the post alone identifies its group
+  private Lane laneOf(NotificationRequest request) {
+    Object group = request.postId() != null ? request.postId() : request.recipientId();
+    return lanes.get(Math.floorMod(Objects.hash(request.type(), group), lanes.size()));
+  }
+
+  private void drain(Lane lane) {
+    BlockingQueue<NotificationRequest> queue = lane.queue();
+    List<NotificationRequest> batch = new ArrayList<>(batchMaxSize);
+    while (running || !queue.isEmpty()) {
+      try {
+        NotificationRequest first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(batchMaxDelayMs);
+        while (batch.size() < batchMaxSize) {
+          queue.drainTo(batch, batchMaxSize - batch.size());
+          long remaining = deadline - System.nanoTime();
+          if (batch.size() >= batchMaxSize || remaining <= 0) {
+            break;
+          }
+          NotificationRequest next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+          if (next == null) {
+            break;
+          }
+          batch.add(next);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        running = false;
+      }
+
+      if (!batch.isEmpty()) {
+        flush(lane, batch);
+        batch.clear();
+      }
+    }
+  }
+
+  private void flush(Lane lane, List<NotificationRequest> batch) {
+    batchSizes.record(batch.size());
+    lane.writeLock().lock();
+    try {
+      List<NotificationPush> pushes = flushTimer.recordCallable(() -> notificationProcessor.processBatch(batch));
+      pushes.forEach(push -> notificationSseService.sendNotification(push.recipientId(), push.view()));
+      pushes.stream().filter(NotificationPush::created)
+          .map(NotificationPush::recipientId)
+          .distinct()
+          .forEach(unreadCounter::invalidate);
+    } catch (Exception e) {
+      failed.increment(batch.size());
+      System.out.println("[NotificationDispatcher] failed to write " + batch.size() + " notifications: "
+          + e.getMessage());
+    } finally {
+      lane.writeLock().unlock();
+    }
+  }
+}
@@ -1,73 +1,81 @@
 package com.microblog.notifications;
 
+import java.util.Set;
+
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
-import com.microblog.dto.NotificationView;
+import com.microblog.events.EventBus;
 import com.microblog.events.FollowEvent;
 import com.microblog.events.LikeEvent;
 import com.microblog.events.UnfollowEvent;
 import com.microblog.events.UnlikeEvent;
-import com.microblog.models.Notification;
+import com.microblog.models.Follows;
+import com.microblog.models.Like;
 import com.microblog.models.Notification.NotificationType;
-import com.microblog.models.Post;
-import com.microblog.models.User;
-import com.microblog.repositories.NotificationRepository;
 
+import jakarta.annotation.PostConstruct;
+
+// runs on its own bus consumer after the like/follow commits and only hands ids on (debounce, then batch writer), so the request never waits
 @Component
 public class NotificationEventListener {
 
   @Autowired
-  private NotificationRepository notificationRepository;
+  private NotificationDebouncer notificationDebouncer;
 
   @Autowired
-  private NotificationSseService notificationPusher;
+  private EventBus eventBus;
+
+  @PostConstruct
+  void subscribe() {
+    // once per cluster: only the node whose outbox relay delivered the event writes the notification
+    eventBus.subscribeOrigin("notifications",
+        Set.of(LikeEvent.class, UnlikeEvent.class, FollowEvent.class, UnfollowEvent.class),
+        event -> {
+          switch (event) {
+            case LikeEvent e -> handleLikeEvent(e);
+            case UnlikeEvent e -> handleUnlikeEvent(e);
+            case FollowEvent e -> handleFollowEvent(e);
+            case UnfollowEvent e -> handleUnfollowEvent(e);
+            default -> {
+            }
+          }
+        });
+  }
+
+  private void handleLike(NotificationType type, Like like) {
+    notificationDebouncer.submit(new NotificationRequest(
+        type,
+        like.getId().getUserId(),
+        null,
+        like.getId().getPostId()));
+  }
 
-  private void handleEvent(NotificationType type, User actor, User recipient, Post post) {
-    if (actor.getId().equals(recipient.getId())) {
+  private void handleFollow(NotificationType type, Follows follows) {
+    if (follows.getId().getFollowerId().equals(follows.getId().getFolloweeId())) {
       return;
     }
-    Notification notification = new Notification(type, recipient, actor, post);
-    Notification saved = notificationRepository.save(notification);
-    NotificationView view = NotificationView.getNotificationView(saved);
-    notificationPusher.sendNotification(recipient.getId(), view);
+    notificationDebouncer.submit(new NotificationRequest(
+        type,
+        follows.getId().getFollowerId(),
+        follows.getId().getFolloweeId(),
+        null));
   }
 
-  @EventListener
   public void handleLikeEvent(LikeEvent event) {
-    handleEvent(
-        NotificationType.LIKE,
-        event.getLike().getUser(),
-        event.getLike().getPost().getAuthor(),
-        event.getLike().getPost());
+    handleLike(NotificationType.LIKE, event.getLike());
   }
 
-  @EventListener
   public void handleUnlikeEvent(UnlikeEvent event) {
-    handleEvent(
-        NotificationType.UNLIKE,
-        event.getLike().getUser(),
-        event.getLike().getPost().getAuthor(),
-        event.getLike().getPost());
+    handleLike(NotificationType.UNLIKE, event.getLike());
   }
 
-  @EventListener
   public void handleFollowEvent(FollowEvent event) {
-    handleEvent(
-        NotificationType.FOLLOW,
-        event.getFollows().getFollower(),
-        event.getFollows().getFollowee(),
-        null);
+    handleFollow(NotificationType.FOLLOW, event.getFollows());
   }
 
-  @EventListener
   public void handleUnfollowEvent(UnfollowEvent event) {
-    handleEvent(
-        NotificationType.UNFOLLOW,
-        event.getFollows().getFollower(),
-        event.getFollows().getFollowee(),
-        null);
+    handleFollow(NotificationType.UNFOLLOW, event.getFollows());
   }
 
 }
@@ -0,0 +1,163 @@
+package com.microblog.notifications;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.microblog.dto.NotificationView;
+import com.microblog.models.Notification;
+import com.microblog.models.Post;
+import com.microblog.models.User;
+import com.microblog.notifications.NotificationAggregator.GroupKey;
+import com.microblog.repositories.NotificationRepository;
+import com.microblog.repositories.PostRepository;
+import com.microblog.repositories.UserRepository;
+
+@Service
+public class NotificationProcessor {
+
+  @Autowired
+  private NotificationRepository notificationRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private PostRepository postRepository;
+
+  @Autowired
+  private NotificationAggregator notificationAggregator;
+
+  // requests of one batch sharing a group key, distinct actors newest first
+  private static class PendingGroup {
+    private final Post post;
+    private final List<User> actors = new ArrayList<>();
+
+    PendingGroup(Post post) {
+      this.post = post;
+    }
+
+    void add(User actor) {
+      actors.removeIf(existing -> existing.getId().equals(actor.getId()));
+      actors.add(0, actor);
+    }
+
+    List<String> actorIds() {
+      return actors.stream().map(User::getId).toList();
+    }
+
+    User latestActor() {
+      return actors.get(0);
+    }
+
+    List<String> usernames() {
+      return actors.stream().map(User::getUsername).toList();
+    }
+  }
+
+  /**
+   * Persists a batch of notifications in one transaction: posts and actors are
+   * resolved with one query each, same-type/same-post requests are collapsed
+   * into one grouped row (reusing a group still open from an earlier batch,
+   * with a single UPDATE that counts only actors new to it), and new rows go
+   * out as JDBC batch inserts. Requests that are no longer
+   * needed (self actions, deleted post or user) are dropped.
+   * Returns one push per touched row.
+   */
+  @Transactional
+  public List<NotificationPush> processBatch(List<NotificationRequest> requests) {
+    Set<UUID> postIds = new HashSet<>();
+    Set<String> actorIds = new HashSet<>();
+    for (NotificationRequest request : requests) {
+      if (request.postId() != null) {
+        postIds.add(request.postId());
+      }
+      actorIds.add(request.actorId());
+    }
+
+    Map<UUID, Post> posts = postIds.isEmpty() ? Map.of()
+        : postRepository.findAllWithAuthorByIdIn(postIds).stream()
+            .collect(Collectors.toMap(Post::getId, Function.identity()));
+    Map<String, User> actors = userRepository.findAllById(actorIds).stream()
+        .collect(Collectors.toMap(User::getId, Function.identity()));
+
+    Map<GroupKey, PendingGroup> groups = new LinkedHashMap<>();
+    for (NotificationRequest request : requests) {
+      Post post = null;
+      String recipientId = request.recipientId();
+      if (request.postId() != null) {
+        post = posts.get(request.postId());
+        if (post == null) {
+          continue;
+        }
+        recipientId = post.getAuthor().getId();
+      }
+
+      User actor = actors.get(request.actorId());
+      if (actor == null || actor.getId().equals(recipientId)) {
+        continue;
+      }
+
+      Post groupPost = post;
+      groups.computeIfAbsent(new GroupKey(recipientId, request.type(), request.postId()), _ -> new PendingGroup(groupPost))
+          .add(actor);
+    }
+
+    Map<GroupKey, UUID> openGroupIds = new LinkedHashMap<>();
+    for (GroupKey key : groups.keySet()) {
+      UUID openId = notificationAggregator.findOpenGroup(key);
+      if (openId != null) {
+        openGroupIds.put(key, openId);
+      }
+    }
+    Map<UUID, NotificationView> openRows = openGroupIds.isEmpty() ? Map.of()
+        : notificationRepository.findViewsByIdIn(openGroupIds.values()).stream()
+            .collect(Collectors.toMap(NotificationView::getId, Function.identity()));
+
+    List<NotificationPush> pushes = new ArrayList<>(groups.size());
+    Map<GroupKey, Notification> created = new LinkedHashMap<>();
+    for (Map.Entry<GroupKey, PendingGroup> entry : groups.entrySet()) {
+      GroupKey key = entry.getKey();
+      PendingGroup group = entry.getValue();
+      UUID openId = openGroupIds.get(key);
+      NotificationView existing = openId != null ? openRows.get(openId) : null;
+
+      if (existing != null && !existing.isRead()) {
+        // rows of one group are only written by this lane, so the counts read above are current
+        int added = notificationAggregator.countNewActors(key, group.actorIds());
+        User latest = group.latestActor();
+        String samples = notificationAggregator.mergeSamples(group.usernames(),
+            String.join(",", existing.getSampleActorUsernames()));
+        if (notificationRepository.addActors(openId, added, latest, samples) == 1) {
+          pushes.add(new NotificationPush(key.recipientId(), new NotificationView(
+              openId, key.type(), latest.getUsername(), latest.getId(), existing.getPostId(),
+              existing.getCreatedAt(), false, existing.getActorCount() + added, samples), false));
+          continue;
+        }
+      }
+
+      Notification notification = new Notification(
+          key.type(), userRepository.getReferenceById(key.recipientId()), group.latestActor(), group.post);
+      notification.setActorCount(group.actors.size());
+      notification.setSampleActors(notificationAggregator.mergeSamples(group.usernames(), null));
+      created.put(key, notification);
+    }
+
+    notificationRepository.saveAll(created.values());
+    created.forEach((key, notification) -> {
+      notificationAggregator.open(key, notification.getId(), groups.get(key).actorIds());
+      pushes.add(new NotificationPush(key.recipientId(), NotificationView.getNotificationView(notification), true));
+    });
+    return pushes;
+  }
+}
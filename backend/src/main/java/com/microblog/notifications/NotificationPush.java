@@ -0,0 +1,8 @@
+package com.microblog.notifications;
+
+import com.microblog.dto.NotificationView;
+
+// a persisted notification waiting to be pushed to its recipient's stream;
+// created is set when the batch inserted a new unread row rather than growing an open group
+public record NotificationPush(String recipientId, NotificationView view, boolean created) {
+}
@@ -0,0 +1,14 @@
+package com.microblog.notifications;
+
+import java.util.UUID;
+
+import com.microblog.models.Notification.NotificationType;
+
+/**
+ * Ids-only description of a notification to create, captured on the request
+ * thread and resolved to entities by the notification worker.
+ * {@code recipientId} is null for post notifications; the worker resolves it
+ * from the post's author.
+ */
+public record NotificationRequest(NotificationType type, String actorId, String recipientId, UUID postId) {
+}
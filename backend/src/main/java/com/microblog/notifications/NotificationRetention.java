@@ -0,0 +1,132 @@
+package com.microblog.notifications;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Keeps the notifications table bounded. Read notifications older than
+ * {@code notifications.retention.read-max-age-days} are deleted, and users
+ * holding more than {@code notifications.retention.max-per-user} rows lose
+ * their oldest ones. The cap is checked for {@code notifications.retention.users-per-run}
+ * users per run, continuing in id order from where the previous run stopped, so
+ * every user is visited in turn without a scan over all notifications. Every
+ * DELETE touches at most one batch and commits on its own, so row locks are
+ * held only briefly.
+ */
+@Component
+public class NotificationRetention {
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Autowired
+  private UnreadCounter unreadCounter;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${notifications.retention.enabled:true}")
+  private boolean enabled;
+
+  @Value("${notifications.retention.read-max-age-days:30}")
+  private int readMaxAgeDays;
+
+  @Value("${notifications.retention.max-per-user:1000}")
+  private int maxPerUser;
+
+  @Value("${notifications.retention.batch-size:500}")
+  private int batchSize;
+
+  @Value("${notifications.retention.users-per-run:1000}")
+  private int usersPerRun;
+
+  // last user whose cap was checked; the next run continues after it
+  private String lastCheckedUserId = "";
+
+  private Counter purgedByAge;
+  private Counter purgedByCap;
+  private Timer runTimer;
+
+  @PostConstruct
+  void registerMetrics() {
+    purgedByAge = meterRegistry.counter("notifications.retention.purged", "reason", "age");
+    purgedByCap = meterRegistry.counter("notifications.retention.purged", "reason", "cap");
+    runTimer = meterRegistry.timer("notifications.retention.run");
+  }
+
+  @Scheduled(fixedDelayString = "${notifications.retention.interval-ms:3600000}",
+      initialDelayString = "${notifications.retention.interval-ms:3600000}")
+  public void scheduledRun() {
+    if (enabled) {
+      runTimer.record(this::run);
+    }
+  }
+
+  public void run() {
+    long byAge = purgeOldRead();
+    long byCap = capPerUser();
+    System.out.println("[NotificationRetention] purged " + byAge + " old read and " + byCap + " over-cap notifications");
+  }
+
+  private long purgeOldRead() {
+    LocalDateTime cutoff = LocalDateTime.now().minusDays(readMaxAgeDays);
+    long purged = 0;
+    int deleted;
+    do {
+      deleted = jdbcTemplate.update("""
+          DELETE FROM notifications WHERE id IN (
+            SELECT id FROM notifications WHERE is_read = true AND created_at < ? LIMIT ?)
+          """, cutoff, batchSize);
+      purged += deleted;
+      purgedByAge.increment(deleted);
+    } while (deleted == batchSize);
+    return purged;
+  }
+
+  private long capPerUser() {
+    List<String> userIds = jdbcTemplate.queryForList(
+        "SELECT id FROM app_users WHERE id > ? ORDER BY id LIMIT ?", String.class, lastCheckedUserId, usersPerRun);
+    // a short page means the walk reached the end; start over next run
+    lastCheckedUserId = userIds.size() < usersPerRun ? "" : userIds.get(userIds.size() - 1);
+
+    long purged = 0;
+    for (String userId : userIds) {
+      // created_at of the oldest row within the cap, read off idx_notifications_recipient_created
+      List<LocalDateTime> cutoff = jdbcTemplate.queryForList("""
+          SELECT created_at FROM notifications WHERE recipient_id = ?
+          ORDER BY created_at DESC OFFSET ? LIMIT 1
+          """, LocalDateTime.class, userId, maxPerUser - 1);
+      if (cutoff.isEmpty()) {
+        continue;
+      }
+      long deletedForUser = 0;
+      int deleted;
+      do {
+        // strictly older, so rows tied with the oldest kept one stay and the cap can be exceeded by ties
+        deleted = jdbcTemplate.update("""
+            DELETE FROM notifications WHERE id IN (
+              SELECT id FROM notifications WHERE recipient_id = ? AND created_at < ? LIMIT ?)
+            """, userId, cutoff.get(0), batchSize);
+        deletedForUser += deleted;
+      } while (deleted == batchSize);
+      purged += deletedForUser;
+      purgedByCap.increment(deletedForUser);
+      if (deletedForUser > 0) {
+        // unread rows may have been among the capped ones
+        unreadCounter.invalidate(userId);
+      }
+    }
+    return purged;
+  }
+}
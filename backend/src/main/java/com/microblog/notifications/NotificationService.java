@@ -2,17 +2,20 @@ package com.microblog.notifications;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.microblog.config.BadRequestException;
+import com.microblog.dto.CursorPage;
+import com.microblog.dto.FeedCursor;
 import com.microblog.dto.NotificationView;
 import com.microblog.models.Notification;
-import com.microblog.models.User;
 import com.microblog.repositories.NotificationRepository;
-import com.microblog.repositories.UserRepository;
 import com.microblog.services.CurrentUserService;
 
 @Service
@@ -22,30 +25,40 @@ public class NotificationService {
   private NotificationRepository notificationRepository;
 
   @Autowired
-  private UserRepository userRepository;
+  private CurrentUserService currentUserService;
 
   @Autowired
-  private CurrentUserService currentUserService;
+  private UnreadCounter unreadCounter;
+
+  // the newest page only; older ones are listed through the cursor endpoint
+  public List<NotificationView> getUserNotifications(int size) {
+    return getUserNotificationsAfter(null, size).getContent();
+  }
 
-  public List<NotificationView> getUserNotifications() {
-    User user = userRepository.findById(currentUserService.getId()).orElseThrow();
-    List<Notification> notifications = notificationRepository.findByRecipientOrderByCreatedAtDesc(user);
-    return notifications.stream()
-        .map(NotificationView::getNotificationView)
-        .collect(Collectors.toList());
+  public CursorPage<NotificationView> getUserNotificationsAfter(String cursor, int size) {
+    if (size < 1) {
+      throw new BadRequestException("Page size must not be less than one");
+    }
+    String userId = currentUserService.getId();
+    FeedCursor after = cursor == null ? null : FeedCursor.decode(cursor);
+    Pageable limit = PageRequest.of(0, size);
+    Slice<NotificationView> views = after == null
+        ? notificationRepository.findPageByRecipientId(userId, limit)
+        : notificationRepository.findPageByRecipientIdBefore(userId, after.createdAt(), after.id(), limit);
+
+    if (!views.hasNext()) {
+      return new CursorPage<>(views.getContent(), null);
+    }
+    NotificationView last = views.getContent().get(views.getNumberOfElements() - 1);
+    return new CursorPage<>(views.getContent(), new FeedCursor(last.getCreatedAt(), last.getId()).encode());
   }
 
   public List<NotificationView> getUnreadNotifications() {
-    User user = userRepository.findById(currentUserService.getId()).orElseThrow();
-    List<Notification> notifications = notificationRepository.findByRecipientAndIsReadFalseOrderByCreatedAtDesc(user);
-    return notifications.stream()
-        .map(NotificationView::getNotificationView)
-        .collect(Collectors.toList());
+    return notificationRepository.findUnreadViewsByRecipientId(currentUserService.getId());
   }
 
   public long getUnreadCount() {
-    User user = userRepository.findById(currentUserService.getId()).orElseThrow();
-    return notificationRepository.countByRecipientAndIsReadFalse(user);
+    return unreadCounter.get(currentUserService.getId());
   }
 
   @Transactional
@@ -56,18 +69,17 @@ public class NotificationService {
       throw new RuntimeException("Unauthorized access to notification");
     }
 
-    notification.setRead(true);
-    notificationRepository.save(notification);
+    // a statement rather than a save, so it never overwrites a concurrent grouping update
+    if (notificationRepository.markAsReadById(notificationId) == 1) {
+      unreadCounter.invalidate(notification.getRecipient().getId());
+    }
   }
 
   @Transactional
   public void markAllAsRead() {
-    User user = userRepository.findById(currentUserService.getId()).orElseThrow();
-    List<Notification> unreadNotifications = notificationRepository
-        .findByRecipientAndIsReadFalseOrderByCreatedAtDesc(user);
-
-    unreadNotifications.forEach(n -> n.setRead(true));
-    notificationRepository.saveAll(unreadNotifications);
+    String userId = currentUserService.getId();
+    notificationRepository.markAllAsReadByRecipientId(userId);
+    unreadCounter.reset(userId);
   }
 
 }
@@ -1,154 +1,128 @@
 package com.microblog.notifications;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microblog.cluster.ClusterEvent;
+import com.microblog.cluster.ClusterEventBus;
 import com.microblog.dto.NotificationView;
-import com.microblog.events.FollowEvent;
-import com.microblog.events.LikeEvent;
-import com.microblog.events.UnfollowEvent;
-import com.microblog.events.UnlikeEvent;
-import com.microblog.models.Follows;
+import com.microblog.repositories.NotificationRepository;
+import com.microblog.sse.SseConnection;
+import com.microblog.sse.SseConnections;
+import com.microblog.sse.SseEvent;
+import com.microblog.sse.SseRegistry;
+import com.microblog.sse.SseReplay;
 
-@Service
-public class NotificationSseService implements NotificationPusher {
-  private final Map<String, SseEmitter> emitters = new ConcurrentHashMap<>();
+import jakarta.annotation.PostConstruct;
 
+@Service
+public class NotificationSseService {
   @Autowired
   private ObjectMapper objectMapper;
 
-  public SseEmitter subscribe(String userId) {
-    SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
-
-    emitters.put(userId, emitter);
-    emitter.onCompletion(() -> emitters.remove(userId));
-    emitter.onTimeout(() -> emitters.remove(userId));
-    emitter.onError((error) -> emitters.remove(userId));
-
-    System.out.println("NotificationSseService: subscribe");
-    return emitter;
-  }
+  @Autowired
+  private SseReplay sseReplay;
 
-  private void sendJsonEvent(String targetUserId, Map<String, Object> payload) {
-    SseEmitter emitter = emitters.get(targetUserId);
-    if (emitter == null)
-      return;
+  @Autowired
+  private SseConnections sseConnections;
 
-    try {
-      emitter.send(SseEmitter.event()
-          .id(String.valueOf(System.currentTimeMillis()))
-          .name("notification")
-          .data(payload));
-    } catch (IOException e) {
-      System.out.println("[NotificationSseService] sendJsonEvent: error caught");
-      System.out.println(e.getMessage());
-      emitters.remove(targetUserId);
-    }
-  }
+  @Autowired
+  private ClusterEventBus clusterEventBus;
 
-  public void sendNotification(String userId, NotificationView notification) {
-    SseEmitter emitter = emitters.get(userId);
-    if (emitter == null || emitters.isEmpty()) {
-      System.out.println("No active emitters for user: " + userId);
-      return;
-    }
+  @Autowired
+  private NotificationRepository notificationRepository;
 
-    System.out.println("Sending notification to user " + userId + ": " + notification.getType());
+  private SseRegistry connections;
 
-    try {
-      String jsonData = objectMapper.writeValueAsString(notification);
-      emitter.send(
-          SseEmitter.event()
-              .name("notification")
-              .data(jsonData));
-    } catch (IOException e) {
-      System.out.println("Error sending notification to user " + userId + ": " + e.getMessage());
-      emitters.remove(userId);
-    }
+  @PostConstruct
+  void createRegistry() {
+    connections = sseConnections.newRegistry();
   }
 
-  public void pingCheck() {
-    var keysToRemove = new ArrayList<String>();
-    for (var entry : emitters.entrySet()) {
-      Map<String, String> payload = Map.of(entry.getKey(), "helloooooo");
-      try {
-        entry.getValue().send(SseEmitter.event()
-            .name("response")
-            .data(payload));
-      } catch (IOException e) {
-        System.out.println("Error sending SSE event: " + e.getMessage());
-        keysToRemove.add(entry.getKey());
-      }
-    }
-    keysToRemove.forEach(emitters::remove);
+  private static String stream(String userId) {
+    return "notifications:" + userId;
   }
 
-  @Override
-  public void pushLikeNotification(LikeEvent event) {
-    var like = event.getLike();
-    String targetUserId = like.getPost().getAuthor().getId();
+  public SseEmitter subscribe(String userId, String lastEventId) {
+    SseConnection connection = sseConnections.open(stream(userId), c -> connections.remove(userId, c));
+    // registered before the replay is read, so nothing recorded in between is lost; the connection drops the duplicates
+    connections.add(userId, connection);
+    connection.start(sseReplay.resume(stream(userId), lastEventId));
 
-    Map<String, Object> payload = Map.of(
-        "type", "LIKE",
-        "actor", Map.of(
-            "id", like.getUser().getId(),
-            "username", like.getUser().getUsername()),
-        "post", Map.of("id", like.getPost().getId()),
-        "timestamp", System.currentTimeMillis());
+    System.out.println("NotificationSseService: subscribe");
+    return connection.getEmitter();
+  }
 
-    sendJsonEvent(targetUserId, payload);
+  public void sendNotification(String userId, NotificationView notification) {
+    deliverNotification(userId, notification);
+    clusterEventBus.publish(ClusterEvent.notification(notification.getId(), userId));
   }
 
-  @Override
-  public void pushUnlikeNotification(UnlikeEvent event) {
-    var like = event.getLike();
-    String targetUserId = like.getPost().getAuthor().getId();
+  // called once the change has committed; counts are per node, so other nodes are only told to re-read theirs
+  public void sendUnreadCount(String userId, long count) {
+    deliverUnreadCount(userId, count);
+    clusterEventBus.publish(ClusterEvent.unreadChanged(userId));
+  }
 
-    Map<String, Object> payload = Map.of(
-        "type", "UNLIKE",
-        "actor", Map.of(
-            "id", like.getUser().getId(),
-            "username", like.getUser().getUsername()),
-        "post", Map.of("id", like.getPost().getId()),
-        "timestamp", System.currentTimeMillis());
+  public boolean isConnected(String userId) {
+    return connections.isConnected(userId);
+  }
 
-    sendJsonEvent(targetUserId, payload);
+  // sent from another node; only ids travel, and the view is loaded only where the recipient has a stream
+  @EventListener
+  public void onClusterEvent(ClusterEvent event) {
+    switch (event.type()) {
+      case NOTIFICATION -> {
+        if (connections.isConnected(event.target()) || sseReplay.isTracked(stream(event.target()))) {
+          notificationRepository.findViewById(UUID.fromString(event.id()))
+              .ifPresent(view -> deliverNotification(event.target(), view));
+        }
+      }
+      default -> {
+      }
+    }
   }
 
-  @Override
-  public void pushFollowNotification(FollowEvent followEvent) {
-    Follows follow = followEvent.getFollows();
-    String targetUserId = follow.getFollowee().getId();
+  private void deliverNotification(String userId, NotificationView notification) {
+    String jsonData;
+    try {
+      jsonData = objectMapper.writeValueAsString(notification);
+    } catch (IOException e) {
+      System.out.println("Error serializing notification for user " + userId + ": " + e.getMessage());
+      return;
+    }
+    // recorded even while offline, so a reconnect within the replay window still gets it
+    SseEvent event = sseReplay.record(stream(userId), "notification", jsonData);
 
-    Map<String, Object> payload = Map.of(
-        "type", "FOLLOW",
-        "actor", Map.of(
-            "id", follow.getFollower().getId(),
-            "username", follow.getFollower().getUsername()),
-        "timestamp", System.currentTimeMillis());
+    if (!connections.isConnected(userId)) {
+      System.out.println("No active emitters for user: " + userId);
+      return;
+    }
 
-    sendJsonEvent(targetUserId, payload);
+    System.out.println("Sending notification to user " + userId + ": " + notification.getType());
+    connections.send(userId, event);
   }
 
-  @Override
-  public void pushUnfollowNotification(UnfollowEvent unfollowEvent) {
-    Follows follow = unfollowEvent.getFollows();
-    String targetUserId = follow.getFollowee().getId();
-
-    Map<String, Object> payload = Map.of(
-        "type", "UNFOLLOW",
-        "actor", Map.of(
-            "id", follow.getFollower().getId(),
-            "username", follow.getFollower().getUsername()),
-        "timestamp", System.currentTimeMillis());
+  // this node's connections only
+  public void deliverUnreadCount(String userId, long count) {
+    connections.send(userId, () -> SseEmitter.event()
+        .name("unread-count")
+        .data(count));
+  }
 
-    sendJsonEvent(targetUserId, payload);
+  public void pingCheck() {
+    for (String userId : connections.connectedUsers()) {
+      Map<String, String> payload = Map.of(userId, "helloooooo");
+      connections.send(userId, () -> SseEmitter.event()
+          .name("response")
+          .data(payload));
+    }
   }
 }
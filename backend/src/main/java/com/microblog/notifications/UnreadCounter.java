@@ -0,0 +1,103 @@
+package com.microblog.notifications;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.microblog.cluster.ClusterEvent;
+import com.microblog.events.EventBus;
+import com.microblog.events.PostDeleteEvent;
+import com.microblog.repositories.NotificationRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Per-user unread notification counts, seeded from the database the first
+ * time a user is read. Writers don't adjust the count: once their change has
+ * committed they invalidate it, and the count is re-read and pushed as an
+ * "unread-count" event on the user's notification stream. A seed query running
+ * alongside a commit may or may not see the new rows, so re-reading after the
+ * commit is the only way to never drift. Other nodes drop their count and
+ * re-read it the same way.
+ */
+@Component
+public class UnreadCounter {
+
+  @Autowired
+  private NotificationRepository notificationRepository;
+
+  @Autowired
+  private NotificationSseService notificationSseService;
+
+  @Autowired
+  private EventBus eventBus;
+
+  private final Map<String, Long> counts = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  void subscribe() {
+    eventBus.subscribe("unread-counts", Set.of(PostDeleteEvent.class),
+        event -> onPostDeleteEvent((PostDeleteEvent) event));
+  }
+
+  public long get(String userId) {
+    return counts.computeIfAbsent(userId, notificationRepository::countByRecipient_IdAndIsReadFalse);
+  }
+
+  // a seed still running is waited for and replaced, since it may predate the change
+  public void reset(String userId) {
+    afterCommit(() -> {
+      counts.put(userId, 0L);
+      publish(userId, 0);
+    });
+  }
+
+  // users without a count are left alone; their first read seeds it after the change
+  public void invalidate(String userId) {
+    afterCommit(() -> {
+      if (counts.remove(userId) != null) {
+        publish(userId, get(userId));
+      }
+    });
+  }
+
+  // deleting a post cascades to its notifications, so the author's count has to be re-read
+  public void onPostDeleteEvent(PostDeleteEvent event) {
+    invalidate(event.getPost().getAuthor().getId());
+  }
+
+  // changed on another node: drop ours and re-read it, pushing only to this node's connections
+  @EventListener
+  public void onClusterEvent(ClusterEvent event) {
+    if (event.type() != ClusterEvent.Type.UNREAD_CHANGED) {
+      return;
+    }
+    counts.remove(event.id());
+    if (notificationSseService.isConnected(event.id())) {
+      notificationSseService.deliverUnreadCount(event.id(), get(event.id()));
+    }
+  }
+
+  private void publish(String userId, long count) {
+    notificationSseService.sendUnreadCount(userId, count);
+  }
+
+  private static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
+}
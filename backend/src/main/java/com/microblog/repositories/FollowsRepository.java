@@ -25,5 +25,19 @@ public interface FollowsRepository extends JpaRepository<Follows, FollowsId> {
       @Param("currentUserId") String currentUserId,
       @Param("targetUserIds") Collection<String> targetUserIds);
 
+  @Query("select f.followee.id from Follows f where f.follower.id = :followerId")
+  List<String> findFolloweeIds(@Param("followerId") String followerId);
+
+  @Query("select f.follower.id from Follows f where f.followee.id = :followeeId")
+  List<String> findFollowerIds(@Param("followeeId") String followeeId);
+
+  @Query("""
+      SELECT f.followee.id
+      FROM Follows f
+      GROUP BY f.followee.id
+      HAVING COUNT(f) > :threshold
+      """)
+  List<String> findFolloweeIdsWithMoreFollowersThan(@Param("threshold") long threshold);
+
   boolean existsByFollower_IdAndFollowee_Id(String followerId, String followeeId);
 }
@@ -4,10 +4,13 @@ import com.microblog.models.Like;
 import com.microblog.models.LikeId;
 import com.microblog.models.Post;
 import com.microblog.models.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -17,9 +20,25 @@ public interface LikeRepository extends JpaRepository<Like, LikeId> {
 
   List<Like> findByPost(Post post);
 
-  Optional<Like> findByUserAndPost(User user, Post post);
+  // idempotent like: returns 1 if the like was added, 0 if it already existed
+  @Modifying
+  @Query(value = """
+          insert into likes (user_id, post_id, liked_at)
+          values (:userId, :postId, :likedAt)
+          on conflict do nothing
+      """, nativeQuery = true)
+  int insertIfAbsent(
+      @Param("userId") String userId,
+      @Param("postId") UUID postId,
+      @Param("likedAt") LocalDateTime likedAt);
 
-  void deleteByUserAndPost(User user, Post post);
+  // single statement unlike: returns 1 if a like was removed, 0 if there was none
+  @Modifying
+  @Query("""
+          delete from Like l
+          where l.user.id = :userId and l.post.id = :postId
+      """)
+  int deleteByUserIdAndPostId(@Param("userId") String userId, @Param("postId") UUID postId);
 
   // returns total like count for a single post
   long countByPost(Post post);
@@ -49,4 +68,12 @@ public interface LikeRepository extends JpaRepository<Like, LikeId> {
               where l.user.id = :userId and l.post.id in :postIds
       """)
   Set<UUID> findLikedPostIdsByUserId(@Param("userId") String userId, @Param("postIds") Set<UUID> postIds);
+
+  // every post a user has liked (bounded by the pageable), used to seed the liked posts cache
+  @Query("""
+              select l.post.id
+              from Like l
+              where l.user.id = :userId
+      """)
+  List<UUID> findPostIdsByUserId(@Param("userId") String userId, Pageable pageable);
 }
@@ -1,19 +1,107 @@
 package com.microblog.repositories;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.microblog.dto.NotificationView;
 import com.microblog.models.Notification;
 import com.microblog.models.User;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, UUID> {
-  List<Notification> findByRecipientOrderByCreatedAtDesc(User recipient);
 
-  List<Notification> findByRecipientAndIsReadFalseOrderByCreatedAtDesc(User recipient);
+  // listings project straight into NotificationView: one query, no entity graphs
+  @Query("""
+      select new com.microblog.dto.NotificationView(
+        n.id, n.type, a.username, a.id, p.id, n.createdAt, n.isRead, n.actorCount, n.sampleActors)
+      from Notification n
+      join n.actor a
+      left join n.post p
+      where n.recipient.id = :recipientId and n.isRead = false
+      order by n.createdAt desc, n.id desc
+      """)
+  List<NotificationView> findUnreadViewsByRecipientId(@Param("recipientId") String recipientId);
 
-  long countByRecipientAndIsReadFalse(User recipient);
+  @Query("""
+      select new com.microblog.dto.NotificationView(
+        n.id, n.type, a.username, a.id, p.id, n.createdAt, n.isRead, n.actorCount, n.sampleActors)
+      from Notification n
+      join n.actor a
+      left join n.post p
+      where n.id = :id
+      """)
+  Optional<NotificationView> findViewById(@Param("id") UUID id);
+
+  @Query("""
+      select new com.microblog.dto.NotificationView(
+        n.id, n.type, a.username, a.id, p.id, n.createdAt, n.isRead, n.actorCount, n.sampleActors)
+      from Notification n
+      join n.actor a
+      left join n.post p
+      where n.id in :ids
+      """)
+  List<NotificationView> findViewsByIdIn(@Param("ids") Collection<UUID> ids);
+
+  // folds more actors into a grouped row in one statement; 0 when the recipient has read it meanwhile
+  @Modifying
+  @Query("""
+      update Notification n
+      set n.actorCount = n.actorCount + :added, n.actor = :actor, n.sampleActors = :sampleActors
+      where n.id = :id and n.isRead = false
+      """)
+  int addActors(
+      @Param("id") UUID id,
+      @Param("added") int added,
+      @Param("actor") User actor,
+      @Param("sampleActors") String sampleActors);
+
+  @Modifying
+  @Query("update Notification n set n.isRead = true where n.id = :id and n.isRead = false")
+  int markAsReadById(@Param("id") UUID id);
+
+  long countByRecipient_IdAndIsReadFalse(String recipientId);
+
+  @Modifying
+  @Query("update Notification n set n.isRead = true where n.recipient.id = :recipientId and n.isRead = false")
+  int markAllAsReadByRecipientId(@Param("recipientId") String recipientId);
+
+  // keyset pages over idx_notifications_recipient_created, newest first
+  @Query("""
+      select new com.microblog.dto.NotificationView(
+        n.id, n.type, a.username, a.id, p.id, n.createdAt, n.isRead, n.actorCount, n.sampleActors)
+      from Notification n
+      join n.actor a
+      left join n.post p
+      where n.recipient.id = :recipientId
+      order by n.createdAt desc, n.id desc
+      """)
+  Slice<NotificationView> findPageByRecipientId(@Param("recipientId") String recipientId, Pageable pageable);
+
+  @Query("""
+      select new com.microblog.dto.NotificationView(
+        n.id, n.type, a.username, a.id, p.id, n.createdAt, n.isRead, n.actorCount, n.sampleActors)
+      from Notification n
+      join n.actor a
+      left join n.post p
+      where n.recipient.id = :recipientId
+      and (n.createdAt < :createdAt
+      or (n.createdAt = :createdAt and n.id < :id))
+      order by n.createdAt desc, n.id desc
+      """)
+  Slice<NotificationView> findPageByRecipientIdBefore(
+      @Param("recipientId") String recipientId,
+      @Param("createdAt") LocalDateTime createdAt,
+      @Param("id") UUID id,
+      Pageable pageable);
 }
@@ -0,0 +1,8 @@
+package com.microblog.repositories;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import com.microblog.models.OutboxEvent;
+
+public interface OutboxRepository extends JpaRepository<OutboxEvent, Long> {
+}
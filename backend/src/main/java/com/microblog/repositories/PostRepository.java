@@ -1,10 +1,17 @@
 package com.microblog.repositories;
 
 import com.microblog.models.Post;
+import com.microblog.timeline.TimelineEntry;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,5 +20,110 @@ public interface PostRepository extends JpaRepository<Post, UUID> {
 
     Page<Post> findAll(Pageable pageable);
 
-    Page<Post> findByAuthorUsernameIn(List<String> usernames, Pageable pageable);
+    // following feed: posts joined to follows on author = followee, served by idx_posts_author_created
+    @Query(value = """
+            select p
+            from Post p
+            join fetch p.author
+            join Follows f on f.followee = p.author
+            where f.follower.id = :followerId
+            """, countQuery = """
+            select count(p)
+            from Post p
+            join Follows f on f.followee = p.author
+            where f.follower.id = :followerId
+            """)
+    Page<Post> findFollowingFeed(@Param("followerId") String followerId, Pageable pageable);
+
+    // hydrates timeline post ids in one round trip (author is needed for every view)
+    @Query("""
+            select p
+            from Post p
+            join fetch p.author
+            where p.id in :postIds
+            """)
+    List<Post> findAllWithAuthorByIdIn(@Param("postIds") Collection<UUID> postIds);
+
+    // newest post keys of the given authors, used to (re)build materialized timelines
+    @Query("""
+            select new com.microblog.timeline.TimelineEntry(p.id, p.author.id, p.createdAt)
+            from Post p
+            where p.author.id in :authorIds
+            order by p.createdAt desc, p.id desc
+            """)
+    List<TimelineEntry> findTimelineEntriesByAuthorIds(
+            @Param("authorIds") Collection<String> authorIds,
+            Pageable pageable);
+
+    @Query("""
+            select new com.microblog.timeline.TimelineEntry(p.id, p.author.id, p.createdAt)
+            from Post p
+            join Follows f on f.followee = p.author
+            where f.follower.id = :followerId
+            order by p.createdAt desc, p.id desc
+            """)
+    List<TimelineEntry> findTimelineEntriesForFollower(
+            @Param("followerId") String followerId,
+            Pageable pageable);
+
+    // same, leaving out authors that are merged in at read time instead of pushed
+    @Query("""
+            select new com.microblog.timeline.TimelineEntry(p.id, p.author.id, p.createdAt)
+            from Post p
+            join Follows f on f.followee = p.author
+            where f.follower.id = :followerId
+            and p.author.id not in :excludedAuthorIds
+            order by p.createdAt desc, p.id desc
+            """)
+    List<TimelineEntry> findTimelineEntriesForFollowerExcluding(
+            @Param("followerId") String followerId,
+            @Param("excludedAuthorIds") Collection<String> excludedAuthorIds,
+            Pageable pageable);
+
+    // keyset pagination: (createdAt, id) of the last post seen, newest first; Slice skips the count query
+    @Query("""
+            select p
+            from Post p
+            join fetch p.author
+            order by p.createdAt desc, p.id desc
+            """)
+    Slice<Post> findFeedSlice(Pageable pageable);
+
+    @Query("""
+            select p
+            from Post p
+            join fetch p.author
+            where p.createdAt < :createdAt
+            or (p.createdAt = :createdAt and p.id < :id)
+            order by p.createdAt desc, p.id desc
+            """)
+    Slice<Post> findFeedSliceBefore(
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") UUID id,
+            Pageable pageable);
+
+    @Query("""
+            select p
+            from Post p
+            join fetch p.author
+            join Follows f on f.followee = p.author
+            where f.follower.id = :followerId
+            order by p.createdAt desc, p.id desc
+            """)
+    Slice<Post> findFollowingFeedSlice(@Param("followerId") String followerId, Pageable pageable);
+
+    @Query("""
+            select p
+            from Post p
+            join fetch p.author
+            join Follows f on f.followee = p.author
+            where f.follower.id = :followerId
+            and (p.createdAt < :createdAt or (p.createdAt = :createdAt and p.id < :id))
+            order by p.createdAt desc, p.id desc
+            """)
+    Slice<Post> findFollowingFeedSliceBefore(
+            @Param("followerId") String followerId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") UUID id,
+            Pageable pageable);
 }
@@ -1,18 +1,31 @@
 package com.microblog.services;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import com.microblog.config.BadRequestException;
+import com.microblog.dto.CursorPage;
+import com.microblog.dto.FeedCursor;
 import com.microblog.dto.PostView;
 import com.microblog.models.Post;
 import com.microblog.repositories.PostRepository;
+import com.microblog.timeline.PullAuthorTimelines;
+import com.microblog.timeline.TimelineEntry;
+import com.microblog.timeline.TimelineMerge;
+import com.microblog.timeline.TimelineStore;
 
 @Service
 public class FeedService {
@@ -20,15 +33,18 @@ public class FeedService {
   @Autowired
   private PostRepository postRepository;
 
-  @Autowired
-  private FollowsService followsService;
-
   @Autowired
   private PostMapperService postMapperService;
 
   @Autowired
   private CurrentUserService currentUser;
 
+  @Autowired
+  private TimelineStore timelineStore;
+
+  @Autowired
+  private PullAuthorTimelines pullAuthorTimelines;
+
   public Page<PostView> getPublicFeed(int page, int size) {
     Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
     Page<Post> posts = postRepository.findAll(pageable);
@@ -36,14 +52,121 @@ public class FeedService {
   }
 
   public Page<PostView> getFollowingFeed(int page, int size) {
+    String userId = currentUser.getId();
+    Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
+    int offset = (int) pageable.getOffset();
+    int end = offset + size;
 
-    List<String> followingUsernames = followsService.getFollowees(currentUser.getId())
-        .stream()
-        .map(followingUser -> followingUser.getUsername())
-        .collect(Collectors.toList());
+    // pages past what is held in memory (only possible once a list has been trimmed) go to the database
+    boolean complete = timelineStore.isComplete(userId);
+    if (!complete && end > timelineStore.size(userId)) {
+      return getFollowingFeedFromDatabase(userId, pageable);
+    }
 
-    Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-    Page<Post> posts = postRepository.findByAuthorUsernameIn(followingUsernames, pageable);
+    // pushed timeline plus the recent posts of followed high-follower authors, k-way merged
+    List<List<TimelineEntry>> sources = new ArrayList<>();
+    sources.add(timelineStore.read(userId, 0, end));
+    long total = timelineStore.size(userId);
+    for (String authorId : timelineStore.getPulledFolloweeIds(userId)) {
+      if (!pullAuthorTimelines.covers(authorId, end)) {
+        return getFollowingFeedFromDatabase(userId, pageable);
+      }
+      sources.add(pullAuthorTimelines.read(authorId, end));
+      total += pullAuthorTimelines.size(authorId);
+    }
+
+    List<TimelineEntry> merged = TimelineMerge.merge(sources, end);
+    List<TimelineEntry> entries = offset < merged.size() ? merged.subList(offset, merged.size()) : List.of();
+    List<Post> posts = hydrate(entries);
+
+    // an incomplete timeline always has at least one more (database backed) page
+    total += complete ? 0 : 1;
+    return postMapperService.toPostViewPage(new PageImpl<>(posts, pageable, total));
+  }
+
+  public CursorPage<PostView> getPublicFeedAfter(String cursor, int size) {
+    checkPageSize(size);
+    FeedCursor after = cursor == null ? null : FeedCursor.decode(cursor);
+    Pageable limit = PageRequest.of(0, size);
+    Slice<Post> posts = after == null
+        ? postRepository.findFeedSlice(limit)
+        : postRepository.findFeedSliceBefore(after.createdAt(), after.id(), limit);
+    return toCursorPage(posts);
+  }
+
+  public CursorPage<PostView> getFollowingFeedAfter(String cursor, int size) {
+    checkPageSize(size);
+    String userId = currentUser.getId();
+    FeedCursor after = cursor == null ? null : FeedCursor.decode(cursor);
+    TimelineEntry position = after == null ? null : new TimelineEntry(after.id(), null, after.createdAt());
+
+    // one extra entry tells whether another page exists
+    int limit = size + 1;
+    List<List<TimelineEntry>> sources = new ArrayList<>();
+    List<TimelineEntry> pushed = timelineStore.readAfter(userId, position, limit);
+    if (pushed.size() < limit && !timelineStore.isComplete(userId)) {
+      return getFollowingFeedAfterFromDatabase(userId, after, size);
+    }
+    sources.add(pushed);
+    for (String authorId : timelineStore.getPulledFolloweeIds(userId)) {
+      List<TimelineEntry> pulled = pullAuthorTimelines.readAfter(authorId, position, limit);
+      if (pulled.size() < limit && !pullAuthorTimelines.isComplete(authorId)) {
+        return getFollowingFeedAfterFromDatabase(userId, after, size);
+      }
+      sources.add(pulled);
+    }
+
+    List<TimelineEntry> merged = TimelineMerge.merge(sources, limit);
+    if (merged.size() <= size) {
+      return new CursorPage<>(postMapperService.toPostViewList(hydrate(merged)), null);
+    }
+    List<TimelineEntry> entries = merged.subList(0, size);
+    TimelineEntry last = entries.get(size - 1);
+    return new CursorPage<>(
+        postMapperService.toPostViewList(hydrate(entries)),
+        new FeedCursor(last.createdAt(), last.postId()).encode());
+  }
+
+  private static void checkPageSize(int size) {
+    if (size < 1) {
+      throw new BadRequestException("Page size must not be less than one");
+    }
+  }
+
+  private CursorPage<PostView> getFollowingFeedAfterFromDatabase(String userId, FeedCursor after, int size) {
+    Pageable limit = PageRequest.of(0, size);
+    Slice<Post> posts = after == null
+        ? postRepository.findFollowingFeedSlice(userId, limit)
+        : postRepository.findFollowingFeedSliceBefore(userId, after.createdAt(), after.id(), limit);
+    return toCursorPage(posts);
+  }
+
+  private CursorPage<PostView> toCursorPage(Slice<Post> posts) {
+    List<PostView> views = postMapperService.toPostViewList(posts.getContent());
+    if (!posts.hasNext()) {
+      return new CursorPage<>(views, null);
+    }
+    Post last = posts.getContent().get(posts.getNumberOfElements() - 1);
+    return new CursorPage<>(views, new FeedCursor(last.getCreatedAt(), last.getId()).encode());
+  }
+
+  private Page<PostView> getFollowingFeedFromDatabase(String userId, Pageable pageable) {
+    Page<Post> posts = postRepository.findFollowingFeed(userId, pageable);
     return postMapperService.toPostViewPage(posts);
   }
+
+  // loads the posts behind timeline entries, keeping timeline order and skipping posts deleted meanwhile
+  private List<Post> hydrate(List<TimelineEntry> entries) {
+    if (entries.isEmpty()) {
+      return List.of();
+    }
+    List<UUID> postIds = entries.stream().map(TimelineEntry::postId).toList();
+    Map<UUID, Post> postsById = postRepository.findAllWithAuthorByIdIn(postIds)
+        .stream()
+        .collect(Collectors.toMap(Post::getId, Function.identity()));
+    return postIds.stream()
+        .map(postsById::get)
+        .filter(post -> post != null)
+        .toList();
+  }
 }
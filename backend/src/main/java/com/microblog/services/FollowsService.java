@@ -6,6 +6,7 @@ import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.microblog.events.AppEventPublisher;
 import com.microblog.events.FollowEvent;
@@ -31,6 +32,7 @@ public class FollowsService {
   @Autowired
   private CurrentUserService currentUser;
 
+  @Transactional
   public void followUser(String targetUserId) {
     if (followsRepository.existsByFollower_IdAndFollowee_Id(currentUser.getId(), targetUserId)) {
       return;
@@ -42,6 +44,7 @@ public class FollowsService {
     appEventPublisher.publish(new FollowEvent(follow));
   }
 
+  @Transactional
   public void unfollowUser(String targetUserId) {
     FollowsId unfollowsId = new FollowsId(currentUser.getId(), targetUserId);
 
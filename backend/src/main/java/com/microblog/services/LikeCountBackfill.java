@@ -0,0 +1,59 @@
+package com.microblog.services;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Recomputes posts.like_count from the likes table, walking posts in id order
+ * one batch (and one short transaction) at a time. Runs on startup when
+ * {@code likes.backfill.enabled} is set; needed once after the column is added.
+ */
+@Service
+public class LikeCountBackfill {
+
+  private static final UUID MIN_ID = new UUID(0L, 0L);
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Value("${likes.backfill.enabled:false}")
+  private boolean enabled;
+
+  @Value("${likes.backfill.batch-size:1000}")
+  private int batchSize;
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void backfillOnStartup() {
+    if (enabled) {
+      backfill();
+    }
+  }
+
+  public long backfill() {
+    long updated = 0;
+    UUID after = MIN_ID;
+    while (true) {
+      List<UUID> ids = jdbcTemplate.queryForList(
+          "SELECT id FROM posts WHERE id > ? ORDER BY id LIMIT ?", UUID.class, after, batchSize);
+      if (ids.isEmpty()) {
+        break;
+      }
+      UUID last = ids.get(ids.size() - 1);
+      updated += jdbcTemplate.update("""
+          UPDATE posts p
+          SET like_count = (SELECT count(*) FROM likes l WHERE l.post_id = p.id)
+          WHERE p.id > ? AND p.id <= ?
+          """, after, last);
+      after = last;
+    }
+    System.out.println("[LikeCountBackfill] like_count recomputed for " + updated + " posts");
+    return updated;
+  }
+}
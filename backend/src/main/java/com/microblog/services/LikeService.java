@@ -1,11 +1,15 @@
 package com.microblog.services;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.microblog.events.AppEventPublisher;
 import com.microblog.events.LikeEvent;
@@ -35,23 +39,38 @@ public class LikeService {
   @Autowired
   private AppEventPublisher appEventPublisher;
 
+  @Autowired
+  private LikeCountCache likeCountCache;
+
+  @Autowired
+  private LikedPostsCache likedPostsCache;
+
+  @Transactional
   public Like likePost(UUID postId) {
-    User user = userRepository.findById(currentUser.getId()).orElseThrow();
-    Post post = postRepository.findById(postId).orElseThrow();
-    if (!likeRepository.findByUserAndPost(user, post).isEmpty()) {
-      throw new RuntimeException("Already liked");
+    String userId = currentUser.getId();
+    Like like = new Like(userRepository.getReferenceById(userId), postRepository.getReferenceById(postId));
+    like.setLikedAt(LocalDateTime.now());
+    if (likeRepository.insertIfAbsent(userId, postId, like.getLikedAt()) > 0) {
+      afterCommit(() -> {
+        likeCountCache.increment(postId);
+        likedPostsCache.liked(userId, postId);
+      });
+      appEventPublisher.publish(new LikeEvent(like));
     }
-    Like like = new Like(user, post);
-    appEventPublisher.publish(new LikeEvent(like));
-    return likeRepository.save(like);
+    return like;
   }
 
+  @Transactional
   public void unlikePost(UUID postId) {
-    User user = userRepository.findById(currentUser.getId()).orElseThrow();
-    Post post = postRepository.findById(postId).orElseThrow();
-    Like unlike = new Like(user, post);
-    appEventPublisher.publish(new UnlikeEvent(unlike));
-    likeRepository.deleteByUserAndPost(user, post);
+    String userId = currentUser.getId();
+    if (likeRepository.deleteByUserIdAndPostId(userId, postId) > 0) {
+      afterCommit(() -> {
+        likeCountCache.decrement(postId);
+        likedPostsCache.unliked(userId, postId);
+      });
+      Like unlike = new Like(userRepository.getReferenceById(userId), postRepository.getReferenceById(postId));
+      appEventPublisher.publish(new UnlikeEvent(unlike));
+    }
   }
 
   public List<Post> getLikedPostsByUsername(String username) {
@@ -63,4 +82,18 @@ public class LikeService {
     Post post = postRepository.findById(postId).orElseThrow();
     return likeRepository.findByPost(post).stream().map(Like::getUser).toList();
   }
+
+  // local state only follows a like once its row has committed
+  private static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
 }
@@ -0,0 +1,92 @@
+package com.microblog.services;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Sorted set of post ids packed into a single long[] (two longs per uuid),
+ * roughly 16 bytes per liked post instead of a boxed UUID in a hash set.
+ */
+final class LikedPostSet {
+
+  private long[] ids;
+  private int size;
+
+  private LikedPostSet(long[] ids, int size) {
+    this.ids = ids;
+    this.size = size;
+  }
+
+  static LikedPostSet of(Collection<UUID> postIds) {
+    UUID[] sorted = postIds.toArray(new UUID[0]);
+    Arrays.sort(sorted);
+    long[] packed = new long[sorted.length * 2];
+    int size = 0;
+    for (UUID postId : sorted) {
+      if (size > 0 && packed[2 * size - 2] == postId.getMostSignificantBits()
+          && packed[2 * size - 1] == postId.getLeastSignificantBits()) {
+        continue;
+      }
+      packed[2 * size] = postId.getMostSignificantBits();
+      packed[2 * size + 1] = postId.getLeastSignificantBits();
+      size++;
+    }
+    return new LikedPostSet(packed, size);
+  }
+
+  synchronized boolean contains(UUID postId) {
+    return indexOf(postId) >= 0;
+  }
+
+  synchronized void add(UUID postId) {
+    int index = indexOf(postId);
+    if (index >= 0) {
+      return;
+    }
+    int insertAt = -index - 1;
+    if (2 * size == ids.length) {
+      ids = Arrays.copyOf(ids, Math.max(8, ids.length * 2));
+    }
+    System.arraycopy(ids, 2 * insertAt, ids, 2 * insertAt + 2, 2 * (size - insertAt));
+    ids[2 * insertAt] = postId.getMostSignificantBits();
+    ids[2 * insertAt + 1] = postId.getLeastSignificantBits();
+    size++;
+  }
+
+  synchronized void remove(UUID postId) {
+    int index = indexOf(postId);
+    if (index < 0) {
+      return;
+    }
+    System.arraycopy(ids, 2 * index + 2, ids, 2 * index, 2 * (size - index - 1));
+    size--;
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  // binary search in UUID.compareTo order; same contract as Arrays.binarySearch
+  private int indexOf(UUID postId) {
+    long msb = postId.getMostSignificantBits();
+    long lsb = postId.getLeastSignificantBits();
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = Long.compare(ids[2 * mid], msb);
+      if (cmp == 0) {
+        cmp = Long.compare(ids[2 * mid + 1], lsb);
+      }
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+}
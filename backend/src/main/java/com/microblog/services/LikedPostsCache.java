@@ -0,0 +1,191 @@
+package com.microblog.services;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.microblog.events.EventBus;
+import com.microblog.events.LikeEvent;
+import com.microblog.events.UnlikeEvent;
+import com.microblog.repositories.LikeRepository;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Which posts a user has liked, held for recently active users so feed pages
+ * can resolve {@code PostView.liked} without a database round trip.
+ * <p>
+ * A user's full set is loaded on first use and then kept current: this node's
+ * likes are applied by {@link LikeService} as they commit, and likes made on
+ * other nodes arrive as relayed LikeEvent/UnlikeEvent replicas. Changes that
+ * arrive while the set is being loaded are held and applied on top of it.
+ * Users with more likes than {@code likes.liked-cache.max-likes-per-user} are
+ * not cached and keep using the per-page query. Each user has its own lock, and
+ * once more than {@code likes.liked-cache.max-users} are held a sweep drops the
+ * least recently used tenth.
+ */
+@Service
+public class LikedPostsCache {
+
+  private static final LikedPostSet TOO_LARGE = LikedPostSet.of(Collections.emptyList());
+
+  private record Change(UUID postId, boolean liked) {
+  }
+
+  private static final class UserLikes {
+    private LikedPostSet liked;
+    // changes seen while the set loads; null once loaded
+    private List<Change> pending = new ArrayList<>();
+    private volatile long lastUsedAt = System.nanoTime();
+  }
+
+  @Autowired
+  private LikeRepository likeRepository;
+
+  @Autowired
+  private EventBus eventBus;
+
+  @Value("${likes.liked-cache.max-users:10000}")
+  private int maxUsers;
+
+  @Value("${likes.liked-cache.max-likes-per-user:5000}")
+  private int maxLikesPerUser;
+
+  private final Map<String, UserLikes> likesByUser = new ConcurrentHashMap<>();
+  private final AtomicBoolean sweeping = new AtomicBoolean();
+
+  @PostConstruct
+  void subscribe() {
+    eventBus.subscribeReplicas("liked-posts", Set.of(LikeEvent.class, UnlikeEvent.class),
+        event -> {
+          switch (event) {
+            case LikeEvent e -> onLikeEvent(e);
+            case UnlikeEvent e -> onUnlikeEvent(e);
+            default -> {
+            }
+          }
+        });
+  }
+
+  public Set<UUID> findLikedPostIds(String userId, Set<UUID> postIds) {
+    if (userId == null || postIds.isEmpty()) {
+      return Collections.emptySet();
+    }
+
+    LikedPostSet liked = getOrLoad(userId);
+    if (liked == TOO_LARGE) {
+      return likeRepository.findLikedPostIdsByUserId(userId, postIds);
+    }
+
+    Set<UUID> result = new HashSet<>();
+    for (UUID postId : postIds) {
+      if (liked.contains(postId)) {
+        result.add(postId);
+      }
+    }
+    return result;
+  }
+
+  public void liked(String userId, UUID postId) {
+    apply(userId, new Change(postId, true));
+  }
+
+  public void unliked(String userId, UUID postId) {
+    apply(userId, new Change(postId, false));
+  }
+
+  public void onLikeEvent(LikeEvent event) {
+    liked(event.getLike().getId().getUserId(), event.getLike().getId().getPostId());
+  }
+
+  public void onUnlikeEvent(UnlikeEvent event) {
+    unliked(event.getLike().getId().getUserId(), event.getLike().getId().getPostId());
+  }
+
+  private void apply(String userId, Change change) {
+    UserLikes user = likesByUser.get(userId);
+    if (user == null) {
+      return;
+    }
+    synchronized (user) {
+      if (user.liked != null) {
+        applyTo(user.liked, change);
+      } else {
+        user.pending.add(change);
+      }
+    }
+  }
+
+  private static void applyTo(LikedPostSet liked, Change change) {
+    if (liked == TOO_LARGE) {
+      return;
+    }
+    if (change.liked()) {
+      liked.add(change.postId());
+    } else {
+      liked.remove(change.postId());
+    }
+  }
+
+  // loaded outside the user's lock, so changes keep being collected while the query runs
+  private LikedPostSet getOrLoad(String userId) {
+    UserLikes user = likesByUser.get(userId);
+    if (user == null) {
+      evictIfFull();
+      // registered before the query, so no change committed after it can slip past
+      user = likesByUser.computeIfAbsent(userId, _ -> new UserLikes());
+    }
+    user.lastUsedAt = System.nanoTime();
+    synchronized (user) {
+      if (user.liked != null) {
+        return user.liked;
+      }
+    }
+
+    List<UUID> postIds;
+    try {
+      postIds = likeRepository.findPostIdsByUserId(userId, PageRequest.of(0, maxLikesPerUser + 1));
+    } catch (RuntimeException e) {
+      likesByUser.remove(userId, user);
+      throw e;
+    }
+    LikedPostSet loaded = postIds.size() > maxLikesPerUser ? TOO_LARGE : LikedPostSet.of(postIds);
+
+    synchronized (user) {
+      if (user.liked == null) {
+        user.pending.forEach(change -> applyTo(loaded, change));
+        user.pending = null;
+        user.liked = loaded;
+      }
+      return user.liked;
+    }
+  }
+
+  private void evictIfFull() {
+    if (likesByUser.size() < maxUsers || !sweeping.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      long[] usedAt = likesByUser.values().stream().mapToLong(user -> user.lastUsedAt).sorted().toArray();
+      int drop = usedAt.length - maxUsers + Math.max(1, maxUsers / 10);
+      if (drop <= 0) {
+        return;
+      }
+      long cutoff = usedAt[Math.min(drop, usedAt.length) - 1];
+      likesByUser.values().removeIf(user -> user.lastUsedAt <= cutoff);
+    } finally {
+      sweeping.set(false);
+    }
+  }
+}
@@ -1,7 +1,6 @@
 package com.microblog.services;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -12,13 +11,15 @@ import org.springframework.stereotype.Service;
 
 import com.microblog.dto.PostView;
 import com.microblog.models.Post;
-import com.microblog.repositories.LikeRepository;
 
 @Service
 public class PostMapperService {
 
   @Autowired
-  private LikeRepository likeRepository;
+  private LikedPostsCache likedPostsCache;
+
+  @Autowired
+  private LikeCountCache likeCountCache;
 
   @Autowired
   private CurrentUserService currentUser;
@@ -35,15 +36,17 @@ public class PostMapperService {
   }
 
   public List<PostView> toPostViewList(List<Post> posts) {
+    if (posts.isEmpty())
+      return List.of();
+
     Set<UUID> postIds = posts.stream().map(Post::getId).collect(Collectors.toSet());
-    Map<UUID, Long> likeCounts = likeRepository.countLikesForPostIds(postIds);
-    Set<UUID> currentUserLikedPostIds = likeRepository.findLikedPostIdsByUserId(currentUser.getId(), postIds);
+    Set<UUID> currentUserLikedPostIds = likedPostsCache.findLikedPostIds(currentUser.getId(), postIds);
 
     return posts.stream().map(
         post -> toPostView(
             post,
             currentUserLikedPostIds.contains(post.getId()),
-            likeCounts.getOrDefault(post.getId(), 0L)))
+            likeCountCache.getLikeCount(post.getId(), post.getLikeCount())))
         .collect(Collectors.toList());
   }
 
@@ -52,13 +55,12 @@ public class PostMapperService {
       return Page.empty();
 
     Set<UUID> postIds = posts.stream().map(Post::getId).collect(Collectors.toSet());
-    Map<UUID, Long> likeCounts = likeRepository.countLikesForPostIds(postIds);
-    Set<UUID> currentUserLikedPostIds = likeRepository.findLikedPostIdsByUserId(currentUser.getId(), postIds);
+    Set<UUID> currentUserLikedPostIds = likedPostsCache.findLikedPostIds(currentUser.getId(), postIds);
 
     return posts.map(
         post -> toPostView(
             post,
             currentUserLikedPostIds.contains(post.getId()),
-            likeCounts.getOrDefault(post.getId(), 0L)));
+            likeCountCache.getLikeCount(post.getId(), post.getLikeCount())));
   }
 }
@@ -5,9 +5,11 @@ import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.microblog.events.AppEventPublisher;
 import com.microblog.events.PostAddEvent;
+import com.microblog.events.PostDeleteEvent;
 import com.microblog.models.Post;
 import com.microblog.repositories.PostRepository;
 
@@ -27,6 +29,7 @@ public class PostService {
     return postRepository.findAllByAuthorUsername(username);
   }
 
+  @Transactional
   public Post addPost(Post post) {
     post.setAuthor(currentUser.getUser());
     Post savedPost = postRepository.save(post);
@@ -34,7 +37,11 @@ public class PostService {
     return savedPost;
   }
 
+  @Transactional
   public void deletePost(UUID postId) {
-    postRepository.deleteById(postId);
+    postRepository.findById(postId).ifPresent(post -> {
+      postRepository.delete(post);
+      appEventPublisher.publish(new PostDeleteEvent(post));
+    });
   }
 }
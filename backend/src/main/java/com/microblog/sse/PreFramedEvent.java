@@ -0,0 +1,57 @@
+package com.microblog.sse;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * An event encoded once into its complete wire form ({@code id:}, {@code event:}
+ * and {@code data:} lines plus the blank terminator). The same instance can be
+ * sent to any number of emitters: each send only copies the bytes, with no
+ * per-connection JSON serialization. Sent through
+ * {@link SseConnection#send(PreFramedEvent)}.
+ */
+public final class PreFramedEvent {
+
+  private final long id;
+  private final byte[] frame;
+  private final Set<DataWithMediaType> data;
+
+  private PreFramedEvent(long id, byte[] frame) {
+    this.id = id;
+    this.frame = frame;
+    this.data = Set.of(new DataWithMediaType(frame, MediaType.TEXT_PLAIN));
+  }
+
+  public static PreFramedEvent encode(SseEvent event, ObjectMapper objectMapper) throws JsonProcessingException {
+    Object payload = event.data();
+    byte[] json = payload instanceof String text
+        ? text.getBytes(StandardCharsets.UTF_8)
+        : objectMapper.writeValueAsBytes(payload);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream(json.length + 64);
+    out.writeBytes(("id:" + event.id() + "\nevent:" + event.name() + "\ndata:").getBytes(StandardCharsets.UTF_8));
+    out.writeBytes(json);
+    out.writeBytes("\n\n".getBytes(StandardCharsets.UTF_8));
+    return new PreFramedEvent(event.id(), out.toByteArray());
+  }
+
+  public long id() {
+    return id;
+  }
+
+  public int size() {
+    return frame.length;
+  }
+
+  // what the emitter writes: the frame as one pre-encoded part
+  public Set<DataWithMediaType> parts() {
+    return data;
+  }
+}
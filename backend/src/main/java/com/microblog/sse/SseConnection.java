@@ -0,0 +1,157 @@
+package com.microblog.sse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * One open SSE stream. Events are queued and written by the connection's own
+ * virtual thread, so whoever publishes an event never blocks on a slow client.
+ * The queue holds events already built into the parts the emitter writes,
+ * with their replay id. Created through {@link SseConnections}, which decides
+ * what happens when the queue is full.
+ */
+public class SseConnection {
+
+  // events without a replay id (heartbeats, unread counts) are never skipped
+  static final long NO_ID = 0;
+
+  record Queued(long id, Set<DataWithMediaType> parts) {
+  }
+
+  private final long id;
+  private final String key;
+  private final SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
+  private final BlockingQueue<Queued> queue;
+  private final SseConnections connections;
+  private final AtomicBoolean closed = new AtomicBoolean();
+  private final Consumer<SseConnection> onClose;
+  private Thread writer;
+  // when the write in progress started; 0 while the writer is waiting for events
+  private volatile long writingSince;
+
+  SseConnection(long id, String key, int queueCapacity, SseConnections connections, Consumer<SseConnection> onClose) {
+    this.id = id;
+    this.key = key;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.connections = connections;
+    this.onClose = onClose;
+    emitter.onCompletion(this::closed);
+    emitter.onTimeout(this::closed);
+    emitter.onError(_ -> closed());
+  }
+
+  /**
+   * Call once the connection is registered, with the replay read after
+   * registering. Missed events are written first; queued events the replay
+   * already covered (recorded between registering and reading it) are skipped.
+   */
+  public void start(List<SseEvent> missed) {
+    writer = Thread.ofVirtual().name("sse-" + id).start(() -> drain(missed));
+  }
+
+  public long getId() {
+    return id;
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  public SseEmitter getEmitter() {
+    return emitter;
+  }
+
+  public int queued() {
+    return queue.size();
+  }
+
+  // how long the current write has been blocked; a quiet but healthy connection reports 0
+  public long stalledMillis(long now) {
+    long since = writingSince;
+    return since == 0 ? 0 : now - since;
+  }
+
+  public boolean isClosed() {
+    return closed.get();
+  }
+
+  public void send(SseEmitter.SseEventBuilder event) {
+    enqueue(new Queued(NO_ID, event.build()));
+  }
+
+  public void send(SseEvent event) {
+    enqueue(new Queued(event.id(), event.frame().build()));
+  }
+
+  // shared, pre-encoded frame: nothing is built per connection
+  public void send(PreFramedEvent event) {
+    enqueue(new Queued(event.id(), event.parts()));
+  }
+
+  private void enqueue(Queued event) {
+    if (closed.get()) {
+      return;
+    }
+    if (!queue.offer(event)) {
+      connections.overflow(this, event);
+    }
+  }
+
+  // best effort: used by the drop-oldest policy to make room
+  boolean dropOldest(Queued event) {
+    queue.poll();
+    return queue.offer(event);
+  }
+
+  public void close() {
+    if (closed()) {
+      emitter.complete();
+    }
+  }
+
+  private boolean closed() {
+    if (!closed.compareAndSet(false, true)) {
+      return false;
+    }
+    if (writer != null) {
+      writer.interrupt();
+    }
+    queue.clear();
+    connections.unregister(this);
+    onClose.accept(this);
+    return true;
+  }
+
+  private void drain(List<SseEvent> missed) {
+    try {
+      writingSince = System.currentTimeMillis();
+      SseReplay.sendMissed(emitter, missed);
+      writingSince = 0;
+      long replayedUpTo = missed == null || missed.isEmpty() ? NO_ID : missed.get(missed.size() - 1).id();
+      while (!closed.get()) {
+        Queued event = queue.take();
+        if (event.id() != NO_ID && event.id() <= replayedUpTo) {
+          continue;
+        }
+        writingSince = System.currentTimeMillis();
+        emitter.send(event.parts());
+        writingSince = 0;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException | IllegalStateException e) {
+      System.out.println("[SseConnection] " + key + "#" + id + " dropped: " + e.getMessage());
+      if (closed()) {
+        emitter.completeWithError(e);
+      }
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package com.microblog.sse;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Opens {@link SseConnection}s and applies the slow-consumer policy. Each
+ * connection buffers up to {@code sse.connection.queue-capacity} events; when a
+ * client falls further behind, {@code sse.connection.overflow-policy} decides:
+ * <ul>
+ * <li>disconnect: close the stream; the client reconnects and catches up
+ * through Last-Event-ID replay</li>
+ * <li>drop-oldest: discard the oldest queued event to make room</li>
+ * <li>drop-newest: discard the event being sent</li>
+ * </ul>
+ */
+@Component
+public class SseConnections {
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${sse.connection.queue-capacity:256}")
+  private int queueCapacity;
+
+  @Value("${sse.connection.overflow-policy:disconnect}")
+  private String overflowPolicy;
+
+  @Value("${sse.connection.max-per-user:5}")
+  private int maxPerUser;
+
+  private final Set<SseConnection> open = ConcurrentHashMap.newKeySet();
+  private final AtomicLong ids = new AtomicLong();
+
+  private Counter dropped;
+  private Counter slowDisconnects;
+
+  @PostConstruct
+  void registerMetrics() {
+    if (!List.of("disconnect", "drop-oldest", "drop-newest").contains(overflowPolicy)) {
+      throw new IllegalArgumentException("Unknown sse.connection.overflow-policy: " + overflowPolicy);
+    }
+    dropped = meterRegistry.counter("sse.events.dropped");
+    slowDisconnects = meterRegistry.counter("sse.connections.slow-disconnects");
+    meterRegistry.gauge("sse.connections.open", open, Set::size);
+    meterRegistry.gauge("sse.connections.queued", open,
+        connections -> connections.stream().mapToInt(SseConnection::queued).sum());
+  }
+
+  // onClose runs once, however the connection ends; nothing is written until start is called
+  public SseConnection open(String key, Consumer<SseConnection> onClose) {
+    SseConnection connection = new SseConnection(ids.incrementAndGet(), key, queueCapacity, this, onClose);
+    open.add(connection);
+    return connection;
+  }
+
+  // one per kind of stream, capped at sse.connection.max-per-user connections per user
+  public SseRegistry newRegistry() {
+    return new SseRegistry(maxPerUser);
+  }
+
+  // every open connection, across all registries
+  Set<SseConnection> openConnections() {
+    return open;
+  }
+
+  void unregister(SseConnection connection) {
+    open.remove(connection);
+  }
+
+  void overflow(SseConnection connection, SseConnection.Queued event) {
+    switch (overflowPolicy) {
+      case "drop-oldest" -> {
+        dropped.increment();
+        if (!connection.dropOldest(event)) {
+          dropped.increment();
+        }
+      }
+      case "drop-newest" -> dropped.increment();
+      default -> {
+        slowDisconnects.increment();
+        System.out.println("[SseConnections] " + connection.getKey() + " too slow, disconnecting");
+        connection.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,14 @@
+package com.microblog.sse;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// one event as it went out on a stream; id is what clients send back as Last-Event-ID
+public record SseEvent(long id, String name, Object data) {
+
+  public SseEmitter.SseEventBuilder frame() {
+    return SseEmitter.event()
+        .id(String.valueOf(id))
+        .name(name)
+        .data(data);
+  }
+}
@@ -0,0 +1,65 @@
+package com.microblog.sse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size ring of the most recent events of one stream. {@code floor} is
+ * the highest id that can no longer be replayed: the sequence value when the
+ * log was created, then the id of each event pushed out of the ring.
+ */
+class SseEventLog {
+
+  private final SseEvent[] events;
+  private int head;
+  private int size;
+  private long floor;
+  private volatile long lastUsedAt = System.nanoTime();
+
+  SseEventLog(int capacity, long floor) {
+    this.events = new SseEvent[capacity];
+    this.floor = floor;
+  }
+
+  // takes the id under this log's lock, so ids in the ring stay in order
+  synchronized SseEvent record(AtomicLong sequence, String name, Object data) {
+    SseEvent event = new SseEvent(sequence.incrementAndGet(), name, data);
+    append(event);
+    return event;
+  }
+
+  synchronized void append(SseEvent event) {
+    int tail = (head + size) % events.length;
+    if (size == events.length) {
+      floor = events[head].id();
+      head = (head + 1) % events.length;
+    } else {
+      size++;
+    }
+    events[tail] = event;
+  }
+
+  void touch() {
+    lastUsedAt = System.nanoTime();
+  }
+
+  long getLastUsedAt() {
+    return lastUsedAt;
+  }
+
+  // events after lastId, oldest first; null when some of them are no longer held
+  synchronized List<SseEvent> since(long lastId) {
+    if (lastId < floor) {
+      return null;
+    }
+    List<SseEvent> missed = new ArrayList<>();
+    for (int i = 0; i < size; i++) {
+      SseEvent event = events[(head + i) % events.length];
+      if (event.id() > lastId) {
+        missed.add(event);
+      }
+    }
+    return missed;
+  }
+}
@@ -0,0 +1,80 @@
+package com.microblog.sse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Sends a comment frame down every open SSE connection each
+ * {@code sse.heartbeat.interval-ms}. A connection whose peer is gone fails the
+ * write and closes itself; one whose writer has been stuck in a single write
+ * for {@code sse.heartbeat.stall-limit-ms} (a half-open socket with a full
+ * send buffer) is closed here. Runs on its own thread so long scheduled jobs
+ * can't delay it.
+ */
+@Component
+public class SseHeartbeat {
+
+  @Autowired
+  private SseConnections sseConnections;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Value("${sse.heartbeat.interval-ms:15000}")
+  private long intervalMs;
+
+  @Value("${sse.heartbeat.stall-limit-ms:60000}")
+  private long stallLimitMs;
+
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+      Thread.ofPlatform().name("sse-heartbeat").daemon().factory());
+
+  private Counter evicted;
+
+  @PostConstruct
+  void start() {
+    evicted = meterRegistry.counter("sse.connections.evicted");
+    scheduler.scheduleWithFixedDelay(this::beat, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  void stop() {
+    scheduler.shutdownNow();
+  }
+
+  public void beat() {
+    try {
+      long now = System.currentTimeMillis();
+      List<SseConnection> dead = new ArrayList<>();
+      for (SseConnection connection : sseConnections.openConnections()) {
+        if (connection.stalledMillis(now) > stallLimitMs) {
+          dead.add(connection);
+        } else {
+          connection.send(SseEmitter.event().comment("heartbeat"));
+        }
+      }
+
+      dead.forEach(SseConnection::close);
+      if (!dead.isEmpty()) {
+        evicted.increment(dead.size());
+        System.out.println("[SseHeartbeat] evicted " + dead.size() + " stalled connections");
+      }
+    } catch (RuntimeException e) {
+      // an exception would cancel the schedule
+      System.out.println("[SseHeartbeat] heartbeat failed: " + e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.microblog.sse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * The open connections of one kind of stream, grouped by user so a user can
+ * have several tabs open. Each user's connections are an immutable list that
+ * is swapped on change, so sends read it without locking. Beyond
+ * {@code maxPerUser} connections the oldest one is closed.
+ * <p>
+ * Connections are removed by identity, so a closing connection never takes a
+ * newer one of the same user with it.
+ */
+public class SseRegistry {
+
+  private final Map<String, List<SseConnection>> byUser = new ConcurrentHashMap<>();
+  private final int maxPerUser;
+
+  SseRegistry(int maxPerUser) {
+    this.maxPerUser = maxPerUser;
+  }
+
+  public void add(String userId, SseConnection connection) {
+    List<SseConnection> evicted = new ArrayList<>();
+    byUser.compute(userId, (_, current) -> {
+      List<SseConnection> next = new ArrayList<>(current == null ? List.of() : current);
+      next.add(connection);
+      while (next.size() > maxPerUser) {
+        evicted.add(next.remove(0));
+      }
+      return List.copyOf(next);
+    });
+    // closing calls back into remove, which must not run inside compute
+    evicted.forEach(SseConnection::close);
+  }
+
+  public void remove(String userId, SseConnection connection) {
+    byUser.computeIfPresent(userId, (_, current) -> {
+      List<SseConnection> next = new ArrayList<>(current);
+      next.remove(connection);
+      return next.isEmpty() ? null : List.copyOf(next);
+    });
+  }
+
+  public List<SseConnection> get(String userId) {
+    return byUser.getOrDefault(userId, List.of());
+  }
+
+  public boolean isConnected(String userId) {
+    return byUser.containsKey(userId);
+  }
+
+  public Set<String> connectedUsers() {
+    return byUser.keySet();
+  }
+
+  // replayable event; each connection builds its own frame from it
+  public void send(String userId, SseEvent event) {
+    get(userId).forEach(connection -> connection.send(event));
+  }
+
+  // Spring's event builders can only be built once, so every connection gets a fresh one
+  public void send(String userId, Supplier<SseEmitter.SseEventBuilder> event) {
+    get(userId).forEach(connection -> connection.send(event.get()));
+  }
+
+  public void forEach(Consumer<SseConnection> action) {
+    byUser.values().forEach(connections -> connections.forEach(action));
+  }
+}
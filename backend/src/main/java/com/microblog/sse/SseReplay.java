@@ -0,0 +1,131 @@
+package com.microblog.sse;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Assigns SSE event ids and remembers recent events so a client reconnecting
+ * with Last-Event-ID gets only what it missed. Ids come from one process-wide
+ * sequence seeded from the clock, so they keep increasing across restarts and
+ * an id from before a restart is simply reported as not replayable.
+ * <p>
+ * The public feed has one shared log; per-user streams (notifications,
+ * following feed) get a log once subscribed to, kept for the
+ * {@code sse.replay.max-streams} most recently used streams. Each log has its
+ * own lock; fan-out to different streams never waits on a shared one.
+ */
+@Component
+public class SseReplay {
+
+  private final AtomicLong sequence = new AtomicLong(System.currentTimeMillis() * 1000);
+
+  @Value("${sse.replay.stream-capacity:100}")
+  private int streamCapacity;
+
+  @Value("${sse.replay.public-capacity:1000}")
+  private int publicCapacity;
+
+  @Value("${sse.replay.max-streams:10000}")
+  private int maxStreams;
+
+  private SseEventLog publicLog;
+
+  private final Map<String, SseEventLog> streams = new ConcurrentHashMap<>();
+
+  @PostConstruct
+  void createPublicLog() {
+    publicLog = new SseEventLog(publicCapacity, sequence.get());
+  }
+
+  public SseEvent recordPublic(String name, Object data) {
+    return publicLog.record(sequence, name, data);
+  }
+
+  // only streams that have been subscribed to keep a log; the id is assigned either way
+  public SseEvent record(String stream, String name, Object data) {
+    SseEventLog log = streams.get(stream);
+    if (log == null) {
+      return new SseEvent(sequence.incrementAndGet(), name, data);
+    }
+    log.touch();
+    return log.record(sequence, name, data);
+  }
+
+  // whether a per-user stream still keeps a log, i.e. a reconnect could be replayed
+  public boolean isTracked(String stream) {
+    return streams.containsKey(stream);
+  }
+
+  /**
+   * Called when a client (re)subscribes. Returns the public feed events after
+   * {@code lastEventId}: empty when nothing was missed or this is a fresh
+   * connection, null when the gap can't be filled and the client should reload.
+   */
+  public List<SseEvent> resumePublic(String lastEventId) {
+    Long lastId = parse(lastEventId);
+    return lastId == null ? List.of() : publicLog.since(lastId);
+  }
+
+  // same as resumePublic for a per-user stream, which starts keeping a log from here on
+  public List<SseEvent> resume(String stream, String lastEventId) {
+    Long lastId = parse(lastEventId);
+    SseEventLog log = streams.get(stream);
+    if (log == null) {
+      evictIfFull();
+      SseEventLog created = new SseEventLog(streamCapacity, sequence.get());
+      log = streams.putIfAbsent(stream, created);
+      if (log == null) {
+        return lastId == null ? List.of() : null;
+      }
+    }
+    log.touch();
+    return lastId == null ? List.of() : log.since(lastId);
+  }
+
+  // writes what resume returned: the missed events, or a "reset" event asking the client to reload
+  public static void sendMissed(SseEmitter emitter, List<SseEvent> missed) throws IOException {
+    if (missed == null) {
+      emitter.send(SseEmitter.event().name("reset").data(""));
+      return;
+    }
+    for (SseEvent event : missed) {
+      emitter.send(event.frame());
+    }
+  }
+
+  // drops the least recently used logs; only runs when a new stream is resumed
+  private void evictIfFull() {
+    while (streams.size() >= maxStreams) {
+      Map.Entry<String, SseEventLog> oldest = null;
+      for (Map.Entry<String, SseEventLog> entry : streams.entrySet()) {
+        if (oldest == null || entry.getValue().getLastUsedAt() < oldest.getValue().getLastUsedAt()) {
+          oldest = entry;
+        }
+      }
+      if (oldest == null || !streams.remove(oldest.getKey(), oldest.getValue())) {
+        return;
+      }
+    }
+  }
+
+  // no header means a fresh connection, not a reconnect
+  private static Long parse(String lastEventId) {
+    if (lastEventId == null || lastEventId.isBlank()) {
+      return null;
+    }
+    try {
+      return Long.parseLong(lastEventId.trim());
+    } catch (NumberFormatException e) {
+      return Long.MIN_VALUE;
+    }
+  }
+}
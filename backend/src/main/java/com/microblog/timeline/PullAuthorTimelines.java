@@ -0,0 +1,140 @@
+package com.microblog.timeline;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.microblog.repositories.FollowsRepository;
+import com.microblog.repositories.PostRepository;
+
+/**
+ * Authors with more followers than {@code feed.fanout.follower-threshold} are
+ * excluded from write fan-out. Their recent posts are kept here once per author
+ * and merged into each follower's timeline at read time instead. The set is
+ * reloaded every {@code feed.fanout.pull-refresh-ms}, so an author who crosses
+ * the threshold is pulled from the next refresh on. At most
+ * {@code feed.fanout.pull-max-authors} authors are held; the least recently
+ * read are dropped and reloaded on their next read.
+ */
+@Component
+public class PullAuthorTimelines {
+
+  @Autowired
+  private PostRepository postRepository;
+
+  @Autowired
+  private FollowsRepository followsRepository;
+
+  @Value("${feed.fanout.follower-threshold:10000}")
+  private long followerThreshold;
+
+  @Value("${feed.timeline.max-size:800}")
+  private int maxSize;
+
+  @Value("${feed.fanout.pull-max-authors:1000}")
+  private int maxAuthors;
+
+  private final Set<String> pullAuthorIds = ConcurrentHashMap.newKeySet();
+  private final Map<String, Timeline> recentPosts = new ConcurrentHashMap<>();
+  private final AtomicBoolean sweeping = new AtomicBoolean();
+
+  // only ever adds: once an author is pulled it stays pulled, so no post is ever missing from both paths
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(fixedDelayString = "${feed.fanout.pull-refresh-ms:300000}",
+      initialDelayString = "${feed.fanout.pull-refresh-ms:300000}")
+  public void loadPullAuthors() {
+    pullAuthorIds.addAll(followsRepository.findFolloweeIdsWithMoreFollowersThan(followerThreshold));
+  }
+
+  public boolean isPullAuthor(String authorId) {
+    return pullAuthorIds.contains(authorId);
+  }
+
+  // iterates whichever of the two sets is smaller
+  public Set<String> retainPullAuthors(Set<String> authorIds) {
+    Set<String> smaller = authorIds.size() <= pullAuthorIds.size() ? authorIds : pullAuthorIds;
+    Set<String> larger = smaller == authorIds ? pullAuthorIds : authorIds;
+
+    Set<String> pulled = new HashSet<>();
+    for (String authorId : smaller) {
+      if (larger.contains(authorId)) {
+        pulled.add(authorId);
+      }
+    }
+    return pulled;
+  }
+
+  public void push(TimelineEntry entry) {
+    Timeline timeline = recentPosts.get(entry.authorId());
+    if (timeline != null) {
+      timeline.add(entry);
+    }
+  }
+
+  public void removePost(String authorId, UUID postId) {
+    Timeline timeline = recentPosts.get(authorId);
+    if (timeline != null) {
+      timeline.removePost(postId);
+    }
+  }
+
+  public List<TimelineEntry> read(String authorId, int limit) {
+    return getOrLoad(authorId).slice(0, limit);
+  }
+
+  public List<TimelineEntry> readAfter(String authorId, TimelineEntry position, int limit) {
+    return getOrLoad(authorId).sliceAfter(position, limit);
+  }
+
+  public boolean isComplete(String authorId) {
+    return getOrLoad(authorId).isComplete();
+  }
+
+  // true when the first `limit` posts of the author can be served from memory
+  public boolean covers(String authorId, int limit) {
+    Timeline timeline = getOrLoad(authorId);
+    return timeline.isComplete() || timeline.size() >= limit;
+  }
+
+  public int size(String authorId) {
+    return getOrLoad(authorId).size();
+  }
+
+  private Timeline getOrLoad(String authorId) {
+    Timeline timeline = recentPosts.get(authorId);
+    if (timeline == null) {
+      evictIfFull();
+      timeline = recentPosts.computeIfAbsent(authorId, id -> {
+        List<TimelineEntry> entries = postRepository.findTimelineEntriesByAuthorIds(
+            Collections.singletonList(id), PageRequest.of(0, maxSize));
+        return new Timeline(maxSize, entries, entries.size() < maxSize);
+      });
+    }
+    timeline.touch();
+    return timeline;
+  }
+
+  private void evictIfFull() {
+    if (recentPosts.size() < maxAuthors || !sweeping.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      Timeline.evictLeastRecentlyRead(recentPosts, maxAuthors);
+    } finally {
+      sweeping.set(false);
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package com.microblog.timeline;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Capped, newest-first list of post ids for one user's following feed.
+ * <p>
+ * {@code complete} is true while the list holds every post the user can see;
+ * once entries are trimmed off the tail, older pages must come from the database.
+ * The followee ids are tracked alongside so authors excluded from write fan-out
+ * can be merged in at read time.
+ */
+class Timeline {
+
+  private final int capacity;
+  private final List<TimelineEntry> entries;
+  private final Set<String> followeeIds = new HashSet<>();
+  private boolean complete;
+  private volatile long lastReadAt = System.nanoTime();
+
+  Timeline(int capacity, List<TimelineEntry> initial, boolean complete) {
+    this.capacity = capacity;
+    this.entries = new ArrayList<>(Math.min(capacity, Math.max(initial.size(), 16)));
+    this.complete = complete;
+    addAll(initial);
+  }
+
+  synchronized void add(TimelineEntry entry) {
+    insert(entry);
+    trim();
+  }
+
+  synchronized void addAll(Collection<TimelineEntry> newEntries) {
+    newEntries.forEach(this::insert);
+    trim();
+  }
+
+  /**
+   * Adds posts that may be older than what the timeline holds, e.g. a new
+   * followee's history. Once the tail has been trimmed, only entries newer than
+   * the tail are kept: anything older belongs to pages served from the
+   * database, and keeping it would leave a gap before it.
+   */
+  synchronized void merge(Collection<TimelineEntry> newEntries) {
+    TimelineEntry tail = complete || entries.isEmpty() ? null : entries.get(entries.size() - 1);
+    for (TimelineEntry entry : newEntries) {
+      if (tail == null || TimelineEntry.NEWEST_FIRST.compare(entry, tail) < 0) {
+        insert(entry);
+      }
+    }
+    trim();
+  }
+
+  synchronized void removePost(UUID postId) {
+    entries.removeIf(entry -> entry.postId().equals(postId));
+  }
+
+  synchronized void removeAuthor(String authorId) {
+    entries.removeIf(entry -> entry.authorId().equals(authorId));
+  }
+
+  synchronized List<TimelineEntry> slice(int offset, int limit) {
+    if (offset >= entries.size()) {
+      return Collections.emptyList();
+    }
+    int end = Math.min(entries.size(), offset + limit);
+    return new ArrayList<>(entries.subList(offset, end));
+  }
+
+  // entries strictly older than the given position
+  synchronized List<TimelineEntry> sliceAfter(TimelineEntry position, int limit) {
+    if (position == null) {
+      return slice(0, limit);
+    }
+    int index = Collections.binarySearch(entries, position, TimelineEntry.NEWEST_FIRST);
+    return slice(index >= 0 ? index + 1 : -index - 1, limit);
+  }
+
+  synchronized void addFollowee(String followeeId) {
+    followeeIds.add(followeeId);
+  }
+
+  synchronized void removeFollowee(String followeeId) {
+    followeeIds.remove(followeeId);
+  }
+
+  synchronized Set<String> getFolloweeIds() {
+    return new HashSet<>(followeeIds);
+  }
+
+  synchronized int size() {
+    return entries.size();
+  }
+
+  synchronized boolean isComplete() {
+    return complete;
+  }
+
+  void touch() {
+    lastReadAt = System.nanoTime();
+  }
+
+  long getLastReadAt() {
+    return lastReadAt;
+  }
+
+  /**
+   * Drops the least recently read tenth of a full map in one pass, so the scan
+   * is paid once per {@code max / 10} insertions rather than on every one.
+   */
+  static void evictLeastRecentlyRead(Map<String, Timeline> timelines, int max) {
+    long[] readAt = timelines.values().stream().mapToLong(Timeline::getLastReadAt).sorted().toArray();
+    int drop = readAt.length - max + Math.max(1, max / 10);
+    if (drop <= 0) {
+      return;
+    }
+    long cutoff = readAt[Math.min(drop, readAt.length) - 1];
+    timelines.values().removeIf(timeline -> timeline.getLastReadAt() <= cutoff);
+  }
+
+  private void insert(TimelineEntry entry) {
+    int index = Collections.binarySearch(entries, entry, TimelineEntry.NEWEST_FIRST);
+    if (index >= 0) {
+      return;
+    }
+    entries.add(-index - 1, entry);
+  }
+
+  private void trim() {
+    if (entries.size() <= capacity) {
+      return;
+    }
+    entries.subList(capacity, entries.size()).clear();
+    complete = false;
+  }
+}
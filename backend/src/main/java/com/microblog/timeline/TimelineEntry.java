@@ -0,0 +1,18 @@
+package com.microblog.timeline;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * A single slot of a materialized home timeline. Only the keys needed to order
+ * and repair a timeline are kept; posts are hydrated from the database on read.
+ */
+public record TimelineEntry(UUID postId, String authorId, LocalDateTime createdAt) {
+
+  // newest first, ties broken the same way postgres orders uuids (byte-wise)
+  public static final Comparator<TimelineEntry> NEWEST_FIRST = Comparator
+      .comparing(TimelineEntry::createdAt)
+      .thenComparing(entry -> entry.postId().toString())
+      .reversed();
+}
@@ -0,0 +1,79 @@
+package com.microblog.timeline;
+
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.microblog.events.EventBus;
+import com.microblog.events.FollowEvent;
+import com.microblog.events.PostAddEvent;
+import com.microblog.events.PostDeleteEvent;
+import com.microblog.events.UnfollowEvent;
+import com.microblog.models.Post;
+import com.microblog.repositories.FollowsRepository;
+
+import jakarta.annotation.PostConstruct;
+
+@Component
+public class TimelineEventListener {
+
+  @Autowired
+  private TimelineStore timelineStore;
+
+  @Autowired
+  private PullAuthorTimelines pullAuthorTimelines;
+
+  @Autowired
+  private FollowsRepository followsRepository;
+
+  @Autowired
+  private EventBus eventBus;
+
+  @PostConstruct
+  void subscribe() {
+    eventBus.subscribe("timelines",
+        Set.of(PostAddEvent.class, PostDeleteEvent.class, FollowEvent.class, UnfollowEvent.class),
+        event -> {
+          switch (event) {
+            case PostAddEvent e -> onPostAddEvent(e);
+            case PostDeleteEvent e -> onPostDeleteEvent(e);
+            case FollowEvent e -> onFollowEvent(e);
+            case UnfollowEvent e -> onUnfollowEvent(e);
+            default -> {
+            }
+          }
+        });
+  }
+
+  public void onPostAddEvent(PostAddEvent event) {
+    Post post = event.getPost();
+    TimelineEntry entry = new TimelineEntry(post.getId(), post.getAuthor().getId(), post.getCreatedAt());
+    if (pullAuthorTimelines.isPullAuthor(entry.authorId())) {
+      pullAuthorTimelines.push(entry);
+      return;
+    }
+    List<String> followerIds = followsRepository.findFollowerIds(post.getAuthor().getId());
+    followerIds.forEach(followerId -> timelineStore.push(followerId, entry));
+  }
+
+  public void onPostDeleteEvent(PostDeleteEvent event) {
+    Post post = event.getPost();
+    pullAuthorTimelines.removePost(post.getAuthor().getId(), post.getId());
+    List<String> followerIds = followsRepository.findFollowerIds(post.getAuthor().getId());
+    followerIds.forEach(followerId -> timelineStore.removePost(followerId, post.getId()));
+  }
+
+  public void onFollowEvent(FollowEvent event) {
+    timelineStore.addAuthor(
+        event.getFollows().getFollower().getId(),
+        event.getFollows().getFollowee().getId());
+  }
+
+  public void onUnfollowEvent(UnfollowEvent event) {
+    timelineStore.removeAuthor(
+        event.getFollows().getFollower().getId(),
+        event.getFollows().getFollowee().getId());
+  }
+}
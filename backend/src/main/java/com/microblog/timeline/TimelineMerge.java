@@ -0,0 +1,54 @@
+package com.microblog.timeline;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.UUID;
+
+public final class TimelineMerge {
+
+  private TimelineMerge() {
+  }
+
+  private record Cursor(List<TimelineEntry> source, int index) {
+    TimelineEntry head() {
+      return source.get(index);
+    }
+  }
+
+  /**
+   * K-way merge of newest-first lists into a single newest-first list of at
+   * most {@code limit} entries. A post present in several lists is kept once.
+   */
+  public static List<TimelineEntry> merge(List<List<TimelineEntry>> sources, int limit) {
+    if (sources.size() == 1) {
+      List<TimelineEntry> only = sources.get(0);
+      return only.size() <= limit ? only : only.subList(0, limit);
+    }
+
+    PriorityQueue<Cursor> heads = new PriorityQueue<>(
+        Math.max(1, sources.size()),
+        (a, b) -> TimelineEntry.NEWEST_FIRST.compare(a.head(), b.head()));
+    for (List<TimelineEntry> source : sources) {
+      if (!source.isEmpty()) {
+        heads.add(new Cursor(source, 0));
+      }
+    }
+
+    List<TimelineEntry> merged = new ArrayList<>(limit);
+    Set<UUID> seen = new HashSet<>();
+    while (merged.size() < limit && !heads.isEmpty()) {
+      Cursor cursor = heads.poll();
+      TimelineEntry entry = cursor.head();
+      if (seen.add(entry.postId())) {
+        merged.add(entry);
+      }
+      if (cursor.index() + 1 < cursor.source().size()) {
+        heads.add(new Cursor(cursor.source(), cursor.index() + 1));
+      }
+    }
+    return merged;
+  }
+}
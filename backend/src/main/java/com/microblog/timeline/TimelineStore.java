@@ -0,0 +1,153 @@
+package com.microblog.timeline;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.microblog.repositories.FollowsRepository;
+import com.microblog.repositories.PostRepository;
+
+/**
+ * Materialized following-feed timelines, keyed by user id.
+ * <p>
+ * Timelines are built lazily from the posts/follows tables on first read and
+ * kept current by fan-out on write (see {@link TimelineEventListener}).
+ * Only timelines already in memory receive pushes; everyone else is rebuilt
+ * on their next read, so dropping a timeline is always safe.
+ */
+@Component
+public class TimelineStore {
+
+  @Autowired
+  private PostRepository postRepository;
+
+  @Autowired
+  private FollowsRepository followsRepository;
+
+  @Autowired
+  private PullAuthorTimelines pullAuthorTimelines;
+
+  @Value("${feed.timeline.max-size:800}")
+  private int maxSize;
+
+  @Value("${feed.timeline.max-users:50000}")
+  private int maxUsers;
+
+  private final Map<String, Timeline> timelines = new ConcurrentHashMap<>();
+  private final AtomicBoolean sweeping = new AtomicBoolean();
+
+  public int getMaxSize() {
+    return maxSize;
+  }
+
+  public List<TimelineEntry> read(String userId, int offset, int limit) {
+    return getOrBuild(userId).slice(offset, limit);
+  }
+
+  public List<TimelineEntry> readAfter(String userId, TimelineEntry position, int limit) {
+    return getOrBuild(userId).sliceAfter(position, limit);
+  }
+
+  public int size(String userId) {
+    return getOrBuild(userId).size();
+  }
+
+  public boolean isComplete(String userId) {
+    return getOrBuild(userId).isComplete();
+  }
+
+  // followees whose posts are merged in at read time rather than pushed
+  public Set<String> getPulledFolloweeIds(String userId) {
+    return pullAuthorTimelines.retainPullAuthors(getOrBuild(userId).getFolloweeIds());
+  }
+
+  public void push(String userId, TimelineEntry entry) {
+    Timeline timeline = timelines.get(userId);
+    if (timeline != null) {
+      timeline.add(entry);
+    }
+  }
+
+  public void addAuthor(String userId, String authorId) {
+    Timeline timeline = timelines.get(userId);
+    if (timeline == null) {
+      return;
+    }
+    timeline.addFollowee(authorId);
+    if (pullAuthorTimelines.isPullAuthor(authorId)) {
+      return;
+    }
+    timeline.merge(postRepository.findTimelineEntriesByAuthorIds(
+        Collections.singletonList(authorId), PageRequest.of(0, maxSize)));
+  }
+
+  public void removeAuthor(String userId, String authorId) {
+    Timeline timeline = timelines.get(userId);
+    if (timeline != null) {
+      timeline.removeFollowee(authorId);
+      timeline.removeAuthor(authorId);
+    }
+  }
+
+  public void removePost(String userId, UUID postId) {
+    Timeline timeline = timelines.get(userId);
+    if (timeline != null) {
+      timeline.removePost(postId);
+    }
+  }
+
+  public void invalidate(String userId) {
+    timelines.remove(userId);
+  }
+
+  public void rebuild(String userId) {
+    timelines.put(userId, load(userId));
+  }
+
+  private Timeline getOrBuild(String userId) {
+    Timeline timeline = timelines.get(userId);
+    if (timeline == null) {
+      evictIfFull();
+      timeline = timelines.computeIfAbsent(userId, this::load);
+    }
+    timeline.touch();
+    return timeline;
+  }
+
+  private Timeline load(String userId) {
+    List<String> followeeIds = followsRepository.findFolloweeIds(userId);
+    if (followeeIds.isEmpty()) {
+      return new Timeline(maxSize, Collections.emptyList(), true);
+    }
+    // pull authors are merged in at read time, so they take no room here
+    Set<String> pulled = pullAuthorTimelines.retainPullAuthors(new HashSet<>(followeeIds));
+    List<TimelineEntry> entries = pulled.isEmpty()
+        ? postRepository.findTimelineEntriesForFollower(userId, PageRequest.of(0, maxSize))
+        : postRepository.findTimelineEntriesForFollowerExcluding(userId, pulled, PageRequest.of(0, maxSize));
+    Timeline timeline = new Timeline(maxSize, entries, entries.size() < maxSize);
+    followeeIds.forEach(timeline::addFollowee);
+    return timeline;
+  }
+
+  // pushes don't count as use
+  private void evictIfFull() {
+    if (timelines.size() < maxUsers || !sweeping.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      Timeline.evictLeastRecentlyRead(timelines, maxUsers);
+    } finally {
+      sweeping.set(false);
+    }
+  }
+}
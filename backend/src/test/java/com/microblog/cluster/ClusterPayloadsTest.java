@@ -0,0 +1,48 @@
+package com.microblog.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+public class ClusterPayloadsTest {
+
+  @Test
+  void roundTripsEvents() {
+    List<ClusterEvent> events = List.of(
+        ClusterEvent.domainEvent("POST_ADD", UUID.randomUUID().toString()),
+        ClusterEvent.notification(UUID.randomUUID(), "user-1"),
+        ClusterEvent.unreadChanged("user-2"),
+        ClusterEvent.domainEvent("FOLLOW", "user-3 user-4"));
+
+    List<String> payloads = ClusterPayloads.pack("node-a", events, 7900);
+    assertEquals(1, payloads.size());
+
+    ClusterPayloads.Decoded decoded = ClusterPayloads.unpack(payloads.get(0));
+    assertEquals("node-a", decoded.origin());
+    assertEquals(events, decoded.events());
+  }
+
+  @Test
+  void splitsLargeBatchesUnderTheNotifyLimit() {
+    List<ClusterEvent> events = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      events.add(ClusterEvent.notification(UUID.randomUUID(), "recipient-" + i));
+    }
+
+    List<String> payloads = ClusterPayloads.pack("node-a", events, 7900);
+    assertTrue(payloads.size() > 1);
+
+    List<ClusterEvent> unpacked = new ArrayList<>();
+    for (String payload : payloads) {
+      assertTrue(payload.getBytes(StandardCharsets.UTF_8).length <= 7900);
+      unpacked.addAll(ClusterPayloads.unpack(payload).events());
+    }
+    assertEquals(events, unpacked);
+  }
+}
@@ -0,0 +1,38 @@
+package com.microblog.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+import com.microblog.config.BadRequestException;
+
+public class FeedCursorTest {
+
+  @Test
+  void roundTripsThroughTheOpaqueForm() {
+    FeedCursor cursor = new FeedCursor(LocalDateTime.of(2025, 10, 15, 19, 31, 7, 123_456_000), UUID.randomUUID());
+
+    String encoded = cursor.encode();
+    assertFalse(encoded.contains("|"));
+    assertFalse(encoded.contains("="));
+    assertEquals(cursor, FeedCursor.decode(encoded));
+  }
+
+  @Test
+  void rejectsMalformedCursorsAsBadRequests() {
+    String noSeparator = Base64.getUrlEncoder().encodeToString("2025-10-15T19:31".getBytes(StandardCharsets.UTF_8));
+    String badUuid = Base64.getUrlEncoder().encodeToString("2025-10-15T19:31|not-a-uuid".getBytes(StandardCharsets.UTF_8));
+
+    assertThrows(BadRequestException.class, () -> FeedCursor.decode("not base64!"));
+    assertThrows(BadRequestException.class, () -> FeedCursor.decode(noSeparator));
+    assertThrows(BadRequestException.class, () -> FeedCursor.decode(badUuid));
+    assertThrows(BadRequestException.class, () -> FeedCursor.decode(""));
+  }
+}
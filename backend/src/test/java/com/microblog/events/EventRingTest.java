@@ -0,0 +1,99 @@
+package com.microblog.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+public class EventRingTest {
+
+  @Test
+  void deliversOnlySubscribedTypesInOrder() throws InterruptedException {
+    EventRing ring = new EventRing(8);
+    List<Object> integers = new ArrayList<>();
+    CountDownLatch done = new CountDownLatch(50);
+    ring.subscribe("integers", Set.of(Integer.class), 4, events -> {
+      assertTrue(events.size() <= 4);
+      integers.addAll(events);
+      events.forEach(_ -> done.countDown());
+    });
+
+    // more than the ring holds, so publishing has to wait for the subscriber
+    for (int i = 0; i < 50; i++) {
+      ring.publish(i);
+      ring.publish("skipped " + i);
+    }
+
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    ring.close();
+    for (int i = 0; i < 50; i++) {
+      assertEquals(i, integers.get(i));
+    }
+  }
+
+  @Test
+  void everySubscriberSeesEveryEventFromSeveralProducers() throws InterruptedException {
+    EventRing ring = new EventRing(64);
+    int producers = 4;
+    int perProducer = 10_000;
+    long[] sums = new long[2];
+    CountDownLatch done = new CountDownLatch(2 * producers * perProducer);
+    for (int s = 0; s < 2; s++) {
+      int slot = s;
+      ring.subscribe("sum-" + s, Set.of(Long.class), 32, events -> {
+        for (Object event : events) {
+          sums[slot] += (Long) event;
+          done.countDown();
+        }
+      });
+    }
+
+    List<Thread> threads = new ArrayList<>();
+    for (int p = 0; p < producers; p++) {
+      threads.add(Thread.ofPlatform().start(() -> {
+        for (long i = 1; i <= perProducer; i++) {
+          ring.publish(i);
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    ring.close();
+    long expected = producers * (long) perProducer * (perProducer + 1) / 2;
+    assertEquals(expected, sums[0]);
+    assertEquals(expected, sums[1]);
+  }
+
+  @Test
+  void subscribersPickTheirSourceAndConsumptionIsTracked() throws InterruptedException {
+    EventRing ring = new EventRing(16);
+    List<Object> origin = new ArrayList<>();
+    List<Object> replicas = new ArrayList<>();
+    List<Object> all = new ArrayList<>();
+    ring.subscribe("replicas", Set.of(String.class), EventRing.Source.REPLICAS, 8, replicas::addAll);
+    ring.subscribe("origin", Set.of(String.class), EventRing.Source.ORIGIN, 8, origin::addAll);
+    ring.subscribe("all", Set.of(String.class), EventRing.Source.ALL, 8, all::addAll);
+
+    ring.publish("local");
+    long last = ring.publish("remote", true);
+
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!ring.isConsumed(last) && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertTrue(ring.isConsumed(last));
+    ring.close();
+    assertEquals(List.of("local"), origin);
+    assertEquals(List.of("remote"), replicas);
+    assertEquals(List.of("local", "remote"), all);
+  }
+}
@@ -0,0 +1,122 @@
+package com.microblog.events;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import com.microblog.models.Follows;
+import com.microblog.models.Like;
+import com.microblog.models.OutboxEvent;
+import com.microblog.models.Post;
+import com.microblog.models.User;
+import com.microblog.repositories.PostRepository;
+import com.microblog.repositories.UserRepository;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class OutboxCodecTest {
+
+  private static final UUID POST_ID = UUID.randomUUID();
+
+  @Mock
+  private PostRepository postRepository;
+
+  @Mock
+  private UserRepository userRepository;
+
+  @InjectMocks
+  private OutboxCodec codec;
+
+  private static User user(String id) {
+    User user = new User();
+    user.setId(id);
+    return user;
+  }
+
+  private static Post post(UUID id, User author) {
+    Post post = new Post();
+    post.setId(id);
+    post.setAuthor(author);
+    return post;
+  }
+
+  private void stubReferences() {
+    when(userRepository.getReferenceById(anyString())).thenAnswer(inv -> user(inv.getArgument(0)));
+    when(postRepository.getReferenceById(any(UUID.class))).thenAnswer(inv -> post(inv.getArgument(0), null));
+  }
+
+  private Object roundTrip(Object event) {
+    OutboxEvent row = codec.encode(event);
+    return codec.decode(row.getEventType(), row.getPayload());
+  }
+
+  @Test
+  void likesRoundTripByIdAndAreKeyedByPost() {
+    stubReferences();
+    Like like = new Like(user("alice"), post(POST_ID, user("bob")));
+
+    OutboxEvent row = codec.encode(new UnlikeEvent(like));
+    assertEquals("UNLIKE", row.getEventType());
+    assertEquals(POST_ID.toString(), row.getAggregateId());
+
+    Object decoded = codec.decode(row.getEventType(), row.getPayload());
+    assertEquals(like.getId(), assertInstanceOf(UnlikeEvent.class, decoded).getLike().getId());
+    assertInstanceOf(LikeEvent.class, roundTrip(new LikeEvent(like)));
+  }
+
+  @Test
+  void followsRoundTripByIdAndAreKeyedByFollowee() {
+    stubReferences();
+    Follows follows = new Follows(user("alice"), user("bob"));
+
+    OutboxEvent row = codec.encode(new FollowEvent(follows));
+    assertEquals("FOLLOW", row.getEventType());
+    assertEquals("bob", row.getAggregateId());
+
+    Object decoded = codec.decode(row.getEventType(), row.getPayload());
+    assertEquals(follows.getId(), assertInstanceOf(FollowEvent.class, decoded).getFollows().getId());
+    assertInstanceOf(UnfollowEvent.class, roundTrip(new UnfollowEvent(follows)));
+  }
+
+  @Test
+  void postAddReloadsThePostAndIsDroppedOnceItIsGone() {
+    Post post = post(POST_ID, user("bob"));
+    when(postRepository.findById(POST_ID)).thenReturn(Optional.of(post));
+
+    assertEquals(post, assertInstanceOf(PostAddEvent.class, roundTrip(new PostAddEvent(post))).getPost());
+
+    when(postRepository.findById(POST_ID)).thenReturn(Optional.empty());
+    assertNull(roundTrip(new PostAddEvent(post)));
+  }
+
+  @Test
+  void postDeleteKeepsThePostAndAuthorIds() {
+    stubReferences();
+
+    Object decoded = roundTrip(new PostDeleteEvent(post(POST_ID, user("bob"))));
+    Post post = assertInstanceOf(PostDeleteEvent.class, decoded).getPost();
+    assertEquals(POST_ID, post.getId());
+    assertEquals("bob", post.getAuthor().getId());
+  }
+
+  @Test
+  void eventsOutsideTheOutboxAreNotEncodedAndUnknownRowsAreRejected() {
+    assertNull(codec.encode("not a domain event"));
+    assertThrows(IllegalArgumentException.class, () -> codec.decode("UNKNOWN", "x"));
+  }
+}
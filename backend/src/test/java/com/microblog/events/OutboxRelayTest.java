@@ -0,0 +1,169 @@
+package com.microblog.events;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.microblog.cluster.ClusterEventBus;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class OutboxRelayTest {
+
+  private static final int MAX_ATTEMPTS = 3;
+
+  @Mock
+  private OutboxCodec outboxCodec;
+
+  @Mock
+  private EventBus eventBus;
+
+  @Mock
+  private ClusterEventBus clusterEventBus;
+
+  @Spy
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @InjectMocks
+  private OutboxRelay relay;
+
+  @Mock
+  private Connection connection;
+
+  @Mock
+  private PreparedStatement select;
+
+  @Mock
+  private PreparedStatement delete;
+
+  @Mock
+  private PreparedStatement update;
+
+  @Mock
+  private ResultSet rs;
+
+  @Captor
+  private ArgumentCaptor<Object[]> ids;
+
+  @BeforeEach
+  void configure() throws Exception {
+    ReflectionTestUtils.setField(relay, "batchSize", 100);
+    ReflectionTestUtils.setField(relay, "maxAttempts", MAX_ATTEMPTS);
+    // the meters start() would register, without starting the relay thread
+    ReflectionTestUtils.setField(relay, "delivered", meterRegistry.counter("outbox.relay.delivered"));
+    ReflectionTestUtils.setField(relay, "failed", meterRegistry.counter("outbox.relay.failed"));
+    ReflectionTestUtils.setField(relay, "deadLettered", meterRegistry.counter("outbox.relay.dead-lettered"));
+    ReflectionTestUtils.setField(relay, "batchTimer", meterRegistry.timer("outbox.relay.batch"));
+
+    when(connection.prepareStatement(startsWith("SELECT"))).thenReturn(select);
+    when(connection.prepareStatement(startsWith("DELETE"))).thenReturn(delete);
+    when(connection.prepareStatement(startsWith("UPDATE"))).thenReturn(update);
+    when(connection.createArrayOf(eq("bigint"), any())).thenReturn(mock(Array.class));
+    when(select.executeQuery()).thenReturn(rs);
+    when(eventBus.publish(any())).thenReturn(7L);
+  }
+
+  // each row is {id, aggregate id, event type, payload, attempts}
+  private void selectRows(Object[]... rows) throws Exception {
+    AtomicInteger cursor = new AtomicInteger(-1);
+    when(rs.next()).thenAnswer(inv -> cursor.incrementAndGet() < rows.length);
+    when(rs.getLong(1)).thenAnswer(inv -> (long) (int) rows[cursor.get()][0]);
+    when(rs.getString(2)).thenAnswer(inv -> rows[cursor.get()][1]);
+    when(rs.getString(3)).thenAnswer(inv -> rows[cursor.get()][2]);
+    when(rs.getString(4)).thenAnswer(inv -> rows[cursor.get()][3]);
+    when(rs.getInt(5)).thenAnswer(inv -> rows[cursor.get()][4]);
+  }
+
+  private int relayBatch() {
+    return ReflectionTestUtils.invokeMethod(relay, "relayBatch", connection);
+  }
+
+  private double count(String name) {
+    return meterRegistry.counter(name).count();
+  }
+
+  @Test
+  void failedRowIsRetriedAndHoldsBackTheRestOfItsAggregate() throws Exception {
+    selectRows(
+        new Object[] { 1, "post-a", "LIKE", "a", 0 },
+        new Object[] { 2, "post-a", "UNLIKE", "a", 0 },
+        new Object[] { 3, "post-b", "LIKE", "b", 0 });
+    when(outboxCodec.decode("LIKE", "a")).thenThrow(new IllegalStateException("boom"));
+    when(outboxCodec.decode("LIKE", "b")).thenReturn("event-b");
+
+    assertEquals(3, relayBatch());
+
+    verify(outboxCodec, never()).decode("UNLIKE", "a");
+    verify(eventBus).awaitConsumed(7L);
+    verify(connection, times(2)).createArrayOf(eq("bigint"), ids.capture());
+    List<Object[]> arrays = ids.getAllValues();
+    assertArrayEquals(new Object[] { 3L }, arrays.get(0));
+    assertArrayEquals(new Object[] { 1L }, arrays.get(1));
+    verify(delete).executeUpdate();
+    verify(update).executeUpdate();
+    assertEquals(1, count("outbox.relay.delivered"));
+    assertEquals(1, count("outbox.relay.failed"));
+    assertEquals(0, count("outbox.relay.dead-lettered"));
+  }
+
+  @Test
+  void lastFailedAttemptDeadLettersTheRowAndReleasesItsAggregate() throws Exception {
+    selectRows(
+        new Object[] { 1, "post-a", "LIKE", "a", MAX_ATTEMPTS - 1 },
+        new Object[] { 2, "post-a", "UNLIKE", "a", 0 });
+    when(outboxCodec.decode("LIKE", "a")).thenThrow(new IllegalStateException("boom"));
+    when(outboxCodec.decode("UNLIKE", "a")).thenReturn("event-a");
+
+    relayBatch();
+
+    // only rows under max-attempts are read, and only those still hold back their aggregate
+    verify(select).setInt(1, MAX_ATTEMPTS);
+    verify(select).setInt(2, MAX_ATTEMPTS);
+    verify(connection, times(2)).createArrayOf(eq("bigint"), ids.capture());
+    assertArrayEquals(new Object[] { 2L }, ids.getAllValues().get(0));
+    assertArrayEquals(new Object[] { 1L }, ids.getAllValues().get(1));
+    assertEquals(1, count("outbox.relay.dead-lettered"));
+    assertEquals(1, count("outbox.relay.delivered"));
+  }
+
+  @Test
+  void emptyBatchTouchesNothing() throws Exception {
+    selectRows();
+
+    assertEquals(0, relayBatch());
+
+    verify(connection, never()).prepareStatement(startsWith("DELETE"));
+    verify(connection, never()).prepareStatement(startsWith("UPDATE"));
+    verify(eventBus, never()).publish(any());
+  }
+}
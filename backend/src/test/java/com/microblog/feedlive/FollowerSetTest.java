@@ -0,0 +1,29 @@
+package com.microblog.feedlive;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class FollowerSetTest {
+
+  @Test
+  void keepsOrdinalsSortedAndUnique() {
+    FollowerSet followers = new FollowerSet();
+    for (int ordinal : new int[] { 9, 3, 7, 3, 1, 12, 5 }) {
+      followers.add(ordinal);
+    }
+
+    assertEquals(6, followers.size());
+    assertArrayEquals(new int[] { 1, 3, 5, 7, 9, 12 }, followers.toArray());
+    assertTrue(followers.contains(7));
+    assertFalse(followers.contains(8));
+
+    followers.remove(7);
+    followers.remove(8);
+    assertFalse(followers.contains(7));
+    assertArrayEquals(new int[] { 1, 3, 5, 9, 12 }, followers.toArray());
+  }
+}
@@ -0,0 +1,94 @@
+package com.microblog.notifications;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.microblog.models.Notification.NotificationType;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class NotificationDebouncerTest {
+
+  private static final UUID POST_ID = UUID.randomUUID();
+
+  @Mock
+  private NotificationDispatcher notificationDispatcher;
+
+  @Spy
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @InjectMocks
+  private NotificationDebouncer debouncer;
+
+  @BeforeEach
+  void start() {
+    ReflectionTestUtils.setField(debouncer, "delayMs", 50L);
+    debouncer.start();
+  }
+
+  @AfterEach
+  void stop() {
+    debouncer.stop();
+  }
+
+  private NotificationRequest request(NotificationType type) {
+    return new NotificationRequest(type, "actor", null, POST_ID);
+  }
+
+  @Test
+  void releasesARequestAfterTheDelay() {
+    NotificationRequest like = request(NotificationType.LIKE);
+    debouncer.submit(like);
+
+    verify(notificationDispatcher, timeout(1000)).submit(like);
+  }
+
+  @Test
+  void oppositeRequestsCancelOut() {
+    debouncer.submit(request(NotificationType.LIKE));
+    debouncer.submit(request(NotificationType.UNLIKE));
+
+    verify(notificationDispatcher, after(300).never()).submit(any());
+    assertEquals(2, meterRegistry.counter("notifications.debounce.cancelled").count());
+  }
+
+  @Test
+  void aRepeatedRequestSupersedesTheEarlierOne() {
+    debouncer.submit(request(NotificationType.LIKE));
+    debouncer.submit(request(NotificationType.LIKE));
+
+    // only the latest request's timer releases it; the superseded one's fires into nothing
+    verify(notificationDispatcher, after(300).times(1)).submit(any());
+    assertEquals(1, meterRegistry.counter("notifications.debounce.superseded").count());
+  }
+
+  @Test
+  void requestsForDifferentTargetsDontInteract() {
+    NotificationRequest like = request(NotificationType.LIKE);
+    NotificationRequest unlikeOther = new NotificationRequest(NotificationType.UNLIKE, "actor", null, UUID.randomUUID());
+    debouncer.submit(like);
+    debouncer.submit(unlikeOther);
+
+    verify(notificationDispatcher, timeout(1000)).submit(like);
+    verify(notificationDispatcher, timeout(1000)).submit(unlikeOther);
+  }
+}
@@ -0,0 +1,104 @@
+package com.microblog.notifications;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class NotificationRetentionTest {
+
+  private static final LocalDateTime CUTOFF = LocalDateTime.of(2025, 10, 1, 12, 0);
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @Mock
+  private UnreadCounter unreadCounter;
+
+  @Spy
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  @InjectMocks
+  private NotificationRetention retention;
+
+  @BeforeEach
+  void configure() {
+    ReflectionTestUtils.setField(retention, "readMaxAgeDays", 30);
+    ReflectionTestUtils.setField(retention, "maxPerUser", 100);
+    ReflectionTestUtils.setField(retention, "batchSize", 2);
+    ReflectionTestUtils.setField(retention, "usersPerRun", 2);
+    retention.registerMetrics();
+    when(jdbcTemplate.queryForList(contains("FROM app_users"), eq(String.class), any(), any())).thenReturn(List.of());
+  }
+
+  private double purged(String reason) {
+    return meterRegistry.counter("notifications.retention.purged", "reason", reason).count();
+  }
+
+  @Test
+  void purgesOldReadRowsBatchByBatch() {
+    when(jdbcTemplate.update(contains("is_read = true"), any(LocalDateTime.class), eq(2))).thenReturn(2, 2, 1);
+
+    retention.run();
+    assertEquals(5, purged("age"));
+  }
+
+  @Test
+  void capsUsersBelowTheirOldestKeptRow() {
+    when(jdbcTemplate.queryForList(contains("FROM app_users"), eq(String.class), eq(""), eq(2)))
+        .thenReturn(List.of("over", "under"));
+    when(jdbcTemplate.queryForList(contains("OFFSET"), eq(LocalDateTime.class), eq("over"), eq(99)))
+        .thenReturn(List.of(CUTOFF));
+    when(jdbcTemplate.queryForList(contains("OFFSET"), eq(LocalDateTime.class), eq("under"), eq(99)))
+        .thenReturn(List.of());
+    when(jdbcTemplate.update(contains("recipient_id = ?"), eq("over"), eq(CUTOFF), eq(2))).thenReturn(2, 1);
+
+    retention.run();
+    assertEquals(3, purged("cap"));
+    verify(unreadCounter).invalidate("over");
+    verify(unreadCounter, never()).invalidate("under");
+    verify(jdbcTemplate, never()).update(contains("recipient_id = ?"), eq("under"), any(), any());
+  }
+
+  @Test
+  void continuesTheUserWalkAcrossRunsAndWrapsAround() {
+    when(jdbcTemplate.queryForList(contains("FROM app_users"), eq(String.class), eq(""), eq(2)))
+        .thenReturn(List.of("a", "b"));
+    when(jdbcTemplate.queryForList(contains("FROM app_users"), eq(String.class), eq("b"), eq(2)))
+        .thenReturn(List.of("c"));
+    when(jdbcTemplate.queryForList(contains("OFFSET"), eq(LocalDateTime.class), anyString(), eq(99)))
+        .thenReturn(List.of());
+
+    retention.run();
+    retention.run();
+    retention.run();
+    verify(jdbcTemplate).queryForList(contains("FROM app_users"), eq(String.class), eq("b"), eq(2));
+    verify(jdbcTemplate, times(2))
+        .queryForList(contains("FROM app_users"), eq(String.class), eq(""), eq(2));
+  }
+}
@@ -0,0 +1,94 @@
+package com.microblog.notifications;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.microblog.events.EventBus;
+import com.microblog.repositories.NotificationRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class UnreadCounterTest {
+
+  private static final String USER_ID = "user-1";
+
+  @Mock
+  private NotificationRepository notificationRepository;
+
+  @Mock
+  private NotificationSseService notificationSseService;
+
+  @Mock
+  private EventBus eventBus;
+
+  @InjectMocks
+  private UnreadCounter unreadCounter;
+
+  @Test
+  void seedsOnceAndServesFromMemory() {
+    when(notificationRepository.countByRecipient_IdAndIsReadFalse(USER_ID)).thenReturn(3L);
+
+    assertEquals(3, unreadCounter.get(USER_ID));
+    assertEquals(3, unreadCounter.get(USER_ID));
+    verify(notificationRepository, times(1)).countByRecipient_IdAndIsReadFalse(USER_ID);
+  }
+
+  @Test
+  void invalidateRereadsAndPushesSeededCounts() {
+    when(notificationRepository.countByRecipient_IdAndIsReadFalse(USER_ID)).thenReturn(3L, 4L);
+    unreadCounter.get(USER_ID);
+
+    unreadCounter.invalidate(USER_ID);
+    verify(notificationSseService).sendUnreadCount(USER_ID, 4);
+    assertEquals(4, unreadCounter.get(USER_ID));
+  }
+
+  @Test
+  void invalidateLeavesUnseededUsersAlone() {
+    unreadCounter.invalidate(USER_ID);
+    verifyNoInteractions(notificationRepository, notificationSseService);
+  }
+
+  @Test
+  void resetNeedsNoQuery() {
+    unreadCounter.reset(USER_ID);
+
+    assertEquals(0, unreadCounter.get(USER_ID));
+    verify(notificationSseService).sendUnreadCount(USER_ID, 0);
+    verify(notificationRepository, never()).countByRecipient_IdAndIsReadFalse(USER_ID);
+  }
+
+  @Test
+  void aChangeCommittedDuringSeedingIsNotLost() throws InterruptedException {
+    CountDownLatch seeding = new CountDownLatch(1);
+    CountDownLatch committed = new CountDownLatch(1);
+    // the first seed query ran before the new notification committed
+    when(notificationRepository.countByRecipient_IdAndIsReadFalse(USER_ID)).thenAnswer(_ -> {
+      seeding.countDown();
+      committed.await(5, TimeUnit.SECONDS);
+      return 1L;
+    }).thenReturn(2L);
+
+    Thread reader = Thread.ofVirtual().start(() -> unreadCounter.get(USER_ID));
+    assertTrue(seeding.await(5, TimeUnit.SECONDS));
+    Thread writer = Thread.ofVirtual().start(() -> unreadCounter.invalidate(USER_ID));
+    committed.countDown();
+    reader.join();
+    writer.join();
+
+    assertEquals(2, unreadCounter.get(USER_ID));
+  }
+}
@@ -0,0 +1,54 @@
+package com.microblog.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+public class LikeCountBackfillTest {
+
+  private static final UUID MIN_ID = new UUID(0L, 0L);
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @InjectMocks
+  private LikeCountBackfill backfill;
+
+  @Test
+  void recomputesOneIdRangeAtATime() {
+    ReflectionTestUtils.setField(backfill, "batchSize", 2);
+    UUID first = new UUID(0L, 1L);
+    UUID second = new UUID(0L, 2L);
+    UUID third = new UUID(0L, 3L);
+    when(jdbcTemplate.queryForList(anyString(), eq(UUID.class), eq(MIN_ID), eq(2))).thenReturn(List.of(first, second));
+    when(jdbcTemplate.queryForList(anyString(), eq(UUID.class), eq(second), eq(2))).thenReturn(List.of(third));
+    when(jdbcTemplate.queryForList(anyString(), eq(UUID.class), eq(third), eq(2))).thenReturn(List.of());
+    when(jdbcTemplate.update(anyString(), eq(MIN_ID), eq(second))).thenReturn(2);
+    when(jdbcTemplate.update(anyString(), eq(second), eq(third))).thenReturn(1);
+
+    assertEquals(3, backfill.backfill());
+    verify(jdbcTemplate).update(anyString(), eq(MIN_ID), eq(second));
+    verify(jdbcTemplate).update(anyString(), eq(second), eq(third));
+  }
+
+  @Test
+  void onlyRunsOnStartupWhenEnabled() {
+    backfill.backfillOnStartup();
+    verifyNoInteractions(jdbcTemplate);
+  }
+}
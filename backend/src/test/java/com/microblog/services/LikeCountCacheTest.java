@@ -0,0 +1,79 @@
+package com.microblog.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+public class LikeCountCacheTest {
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @InjectMocks
+  private LikeCountCache cache;
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void writesPendingDeltasBehindInOneBatch() {
+    UUID hot = UUID.randomUUID();
+    UUID cold = UUID.randomUUID();
+    for (int i = 0; i < 5; i++) {
+      cache.increment(hot);
+    }
+    cache.decrement(hot);
+    cache.increment(cold);
+    assertEquals(14, cache.getLikeCount(hot, 10));
+
+    cache.flush();
+    ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+    verify(jdbcTemplate).batchUpdate(anyString(), updates.capture());
+    assertEquals(2, updates.getValue().size());
+    for (Object[] update : updates.getValue()) {
+      assertEquals(update[1].equals(hot) ? 4L : 1L, update[0]);
+    }
+
+    // the column now holds the flushed delta, so nothing is added on top of it
+    assertEquals(14, cache.getLikeCount(hot, 14));
+  }
+
+  @Test
+  void keepsDeltasWhenTheFlushFails() {
+    UUID postId = UUID.randomUUID();
+    cache.increment(postId);
+    when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new QueryTimeoutException("timeout"));
+
+    cache.flush();
+    assertEquals(1, cache.getLikeCount(postId, 0));
+  }
+
+  @Test
+  void dropsIdleEntriesAndKeepsCountingAfterwards() {
+    UUID postId = UUID.randomUUID();
+    cache.increment(postId);
+    cache.decrement(postId);
+
+    // nothing to write: the entry is retired without touching the database
+    cache.flush();
+    verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    assertEquals(3, cache.getLikeCount(postId, 3));
+
+    cache.increment(postId);
+    assertEquals(4, cache.getLikeCount(postId, 3));
+  }
+}
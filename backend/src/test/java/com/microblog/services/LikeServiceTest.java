@@ -0,0 +1,115 @@
+package com.microblog.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.microblog.events.AppEventPublisher;
+import com.microblog.events.LikeEvent;
+import com.microblog.events.UnlikeEvent;
+import com.microblog.models.Post;
+import com.microblog.models.User;
+import com.microblog.repositories.LikeRepository;
+import com.microblog.repositories.PostRepository;
+import com.microblog.repositories.UserRepository;
+
+@ExtendWith(MockitoExtension.class)
+public class LikeServiceTest {
+
+  private static final String USER_ID = "user-1";
+  private static final UUID POST_ID = UUID.randomUUID();
+
+  @Mock
+  private UserRepository userRepository;
+
+  @Mock
+  private PostRepository postRepository;
+
+  @Mock
+  private LikeRepository likeRepository;
+
+  @Mock
+  private CurrentUserService currentUser;
+
+  @Mock
+  private AppEventPublisher appEventPublisher;
+
+  @Mock
+  private LikeCountCache likeCountCache;
+
+  @Mock
+  private LikedPostsCache likedPostsCache;
+
+  @InjectMocks
+  private LikeService likeService;
+
+  @BeforeEach
+  void currentUser() {
+    when(currentUser.getId()).thenReturn(USER_ID);
+  }
+
+  private void stubReferences() {
+    User user = new User();
+    user.setId(USER_ID);
+    Post post = new Post();
+    post.setId(POST_ID);
+    when(userRepository.getReferenceById(USER_ID)).thenReturn(user);
+    when(postRepository.getReferenceById(POST_ID)).thenReturn(post);
+  }
+
+  @Test
+  void publishesALikeOnlyWhenTheRowWasInserted() {
+    stubReferences();
+    when(likeRepository.insertIfAbsent(eq(USER_ID), eq(POST_ID), any())).thenReturn(1);
+
+    likeService.likePost(POST_ID);
+    ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+    verify(appEventPublisher).publish(event.capture());
+    assertEquals(LikeEvent.class, event.getValue().getClass());
+    verify(likeCountCache).increment(POST_ID);
+    verify(likedPostsCache).liked(USER_ID, POST_ID);
+  }
+
+  @Test
+  void repeatedLikeChangesNothing() {
+    stubReferences();
+    when(likeRepository.insertIfAbsent(eq(USER_ID), eq(POST_ID), any())).thenReturn(0);
+
+    likeService.likePost(POST_ID);
+    verifyNoInteractions(appEventPublisher, likeCountCache, likedPostsCache);
+  }
+
+  @Test
+  void publishesAnUnlikeOnlyWhenTheRowWasDeleted() {
+    stubReferences();
+    when(likeRepository.deleteByUserIdAndPostId(USER_ID, POST_ID)).thenReturn(1);
+
+    likeService.unlikePost(POST_ID);
+    ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+    verify(appEventPublisher).publish(event.capture());
+    assertEquals(UnlikeEvent.class, event.getValue().getClass());
+    verify(likeCountCache).decrement(POST_ID);
+    verify(likedPostsCache).unliked(USER_ID, POST_ID);
+  }
+
+  @Test
+  void unlikingAPostNotLikedChangesNothing() {
+    when(likeRepository.deleteByUserIdAndPostId(USER_ID, POST_ID)).thenReturn(0);
+
+    likeService.unlikePost(POST_ID);
+    verifyNoInteractions(appEventPublisher, likeCountCache, likedPostsCache);
+  }
+}
@@ -0,0 +1,39 @@
+package com.microblog.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+public class LikedPostSetTest {
+
+  @Test
+  void tracksMembershipThroughAddsAndRemoves() {
+    List<UUID> initial = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      initial.add(UUID.randomUUID());
+    }
+    initial.add(initial.get(0));
+
+    LikedPostSet liked = LikedPostSet.of(initial);
+    assertEquals(100, liked.size());
+    initial.forEach(postId -> assertTrue(liked.contains(postId)));
+
+    UUID added = UUID.randomUUID();
+    assertFalse(liked.contains(added));
+    liked.add(added);
+    liked.add(added);
+    assertTrue(liked.contains(added));
+    assertEquals(101, liked.size());
+
+    liked.remove(initial.get(50));
+    assertFalse(liked.contains(initial.get(50)));
+    assertTrue(liked.contains(initial.get(49)));
+    assertEquals(100, liked.size());
+  }
+}
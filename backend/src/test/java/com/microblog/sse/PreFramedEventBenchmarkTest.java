@@ -0,0 +1,105 @@
+package com.microblog.sse;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+/**
+ * Per-post cost of the public feed broadcast with 10k subscribers: building
+ * and serializing the event for every connection (the old path) against
+ * encoding it once and copying the frame. Timings are printed, not asserted;
+ * the measurement is tagged "benchmark" and only runs with
+ * {@code ./gradlew benchmark}.
+ */
+public class PreFramedEventBenchmarkTest {
+
+  private static final int SUBSCRIBERS = 10_000;
+  private static final int POSTS = 20;
+
+  private final ObjectMapper objectMapper = JsonMapper.builder().findAndAddModules().build();
+
+  private Map<String, Object> payload() {
+    return Map.of(
+        "type", "NEW_POST",
+        "post", Map.of(
+            "id", UUID.randomUUID(),
+            "content", "Benchmarking the public feed broadcast, one post at a time",
+            "author", Map.of("id", "author-1", "username", "author"),
+            "timestamp", "2026-01-01T12:00:00"));
+  }
+
+  // what the servlet response ends up with for one send of these parts
+  private byte[] render(Set<DataWithMediaType> parts) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (DataWithMediaType part : parts) {
+      Object data = part.getData();
+      if (data instanceof byte[] bytes) {
+        out.writeBytes(bytes);
+      } else if (data instanceof String text) {
+        out.writeBytes(text.getBytes(StandardCharsets.UTF_8));
+      } else {
+        out.writeBytes(objectMapper.writeValueAsBytes(data));
+      }
+    }
+    return out.toByteArray();
+  }
+
+  @Test
+  void preFramedMatchesPerConnectionFraming() throws IOException {
+    SseEvent event = new SseEvent(42, "NEW_POST", payload());
+    assertArrayEquals(render(event.frame().build()), render(PreFramedEvent.encode(event, objectMapper).parts()));
+  }
+
+  @Test
+  @Tag("benchmark")
+  void broadcastCostWithTenThousandSubscribers() throws IOException {
+    // warm up both paths before measuring
+    broadcastPerConnection(new SseEvent(1, "NEW_POST", payload()));
+    broadcastPreFramed(new SseEvent(1, "NEW_POST", payload()));
+
+    long perConnection = 0;
+    long preFramed = 0;
+    for (int i = 0; i < POSTS; i++) {
+      SseEvent event = new SseEvent(i, "NEW_POST", payload());
+      long start = System.nanoTime();
+      broadcastPerConnection(event);
+      perConnection += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      broadcastPreFramed(event);
+      preFramed += System.nanoTime() - start;
+    }
+
+    System.out.printf("[PreFramedEventBenchmark] %d subscribers: per-connection %.2f ms/post, pre-framed %.2f ms/post%n",
+        SUBSCRIBERS, perConnection / 1e6 / POSTS, preFramed / 1e6 / POSTS);
+  }
+
+  private long broadcastPerConnection(SseEvent event) throws IOException {
+    long bytes = 0;
+    for (int i = 0; i < SUBSCRIBERS; i++) {
+      bytes += render(event.frame().build()).length;
+    }
+    return bytes;
+  }
+
+  private long broadcastPreFramed(SseEvent event) throws IOException {
+    PreFramedEvent frame = PreFramedEvent.encode(event, objectMapper);
+    long bytes = 0;
+    for (int i = 0; i < SUBSCRIBERS; i++) {
+      bytes += render(frame.parts()).length;
+    }
+    return bytes;
+  }
+}
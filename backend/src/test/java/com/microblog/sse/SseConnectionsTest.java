@@ -0,0 +1,82 @@
+package com.microblog.sse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SseConnectionsTest {
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private SseConnections connections(String overflowPolicy) {
+    SseConnections connections = new SseConnections();
+    ReflectionTestUtils.setField(connections, "meterRegistry", meterRegistry);
+    ReflectionTestUtils.setField(connections, "queueCapacity", 2);
+    ReflectionTestUtils.setField(connections, "overflowPolicy", overflowPolicy);
+    ReflectionTestUtils.setField(connections, "maxPerUser", 5);
+    connections.registerMetrics();
+    return connections;
+  }
+
+  // never started, so nothing is written and the queue only fills
+  private static void sendThree(SseConnection connection) {
+    for (long id = 1; id <= 3; id++) {
+      connection.send(new SseEvent(id, "notification", "payload-" + id));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Long> queuedIds(SseConnection connection) {
+    Collection<SseConnection.Queued> queue = (Collection<SseConnection.Queued>) ReflectionTestUtils.getField(connection, "queue");
+    return queue.stream().map(SseConnection.Queued::id).toList();
+  }
+
+  private double count(String name) {
+    return meterRegistry.counter(name).count();
+  }
+
+  @Test
+  void disconnectClosesASlowConnection() {
+    AtomicInteger closed = new AtomicInteger();
+    SseConnections connections = connections("disconnect");
+    SseConnection connection = connections.open("alice", _ -> closed.incrementAndGet());
+
+    sendThree(connection);
+    assertTrue(connection.isClosed());
+    assertEquals(1, closed.get());
+    assertEquals(1, count("sse.connections.slow-disconnects"));
+    assertFalse(connections.openConnections().contains(connection));
+  }
+
+  @Test
+  void dropOldestMakesRoomForTheNewEvent() {
+    SseConnection connection = connections("drop-oldest").open("alice", _ -> {
+    });
+
+    sendThree(connection);
+    assertFalse(connection.isClosed());
+    assertEquals(List.of(2L, 3L), queuedIds(connection));
+    assertEquals(1, count("sse.events.dropped"));
+  }
+
+  @Test
+  void dropNewestKeepsWhatIsQueued() {
+    SseConnection connection = connections("drop-newest").open("alice", _ -> {
+    });
+
+    sendThree(connection);
+    assertFalse(connection.isClosed());
+    assertEquals(List.of(1L, 2L), queuedIds(connection));
+    assertEquals(1, count("sse.events.dropped"));
+  }
+}
@@ -0,0 +1,46 @@
+package com.microblog.sse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class SseEventLogTest {
+
+  @Test
+  void replaysOnlyEventsAfterLastId() {
+    SseEventLog log = new SseEventLog(10, 100);
+    for (long id = 101; id <= 105; id++) {
+      log.append(new SseEvent(id, "notification", "payload-" + id));
+    }
+
+    List<SseEvent> missed = log.since(103);
+    assertEquals(List.of(104L, 105L), missed.stream().map(SseEvent::id).toList());
+    assertTrue(log.since(105).isEmpty());
+    assertEquals(5, log.since(100).size());
+  }
+
+  @Test
+  void reportsGapOnceEventsAreOverwritten() {
+    SseEventLog log = new SseEventLog(3, 0);
+    for (long id = 1; id <= 5; id++) {
+      log.append(new SseEvent(id, "NEW_POST", id));
+    }
+
+    // 1 and 2 fell out of the ring: a client that saw only 1 can't be caught up
+    assertNull(log.since(1));
+    assertEquals(List.of(3L, 4L, 5L), log.since(2).stream().map(SseEvent::id).toList());
+  }
+
+  @Test
+  void idsFromBeforeTheLogExistedAreNotReplayable() {
+    SseEventLog log = new SseEventLog(3, 50);
+    log.append(new SseEvent(51, "notification", "x"));
+
+    assertNull(log.since(49));
+    assertEquals(1, log.since(50).size());
+  }
+}
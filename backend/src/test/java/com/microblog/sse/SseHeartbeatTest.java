@@ -0,0 +1,62 @@
+package com.microblog.sse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SseHeartbeatTest {
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final SseConnections connections = new SseConnections();
+  private final SseHeartbeat heartbeat = new SseHeartbeat();
+
+  @BeforeEach
+  void start() {
+    ReflectionTestUtils.setField(connections, "meterRegistry", meterRegistry);
+    ReflectionTestUtils.setField(connections, "queueCapacity", 8);
+    ReflectionTestUtils.setField(connections, "overflowPolicy", "disconnect");
+    connections.registerMetrics();
+
+    ReflectionTestUtils.setField(heartbeat, "sseConnections", connections);
+    ReflectionTestUtils.setField(heartbeat, "meterRegistry", meterRegistry);
+    // beats are driven by the test, not the schedule
+    ReflectionTestUtils.setField(heartbeat, "intervalMs", 3_600_000L);
+    ReflectionTestUtils.setField(heartbeat, "stallLimitMs", 60_000L);
+    heartbeat.start();
+  }
+
+  @AfterEach
+  void stop() {
+    heartbeat.stop();
+  }
+
+  @Test
+  void evictsOnlyConnectionsStuckInAWrite() {
+    SseConnection quiet = connections.open("quiet", _ -> {
+    });
+    SseConnection slowButMoving = connections.open("slow", _ -> {
+    });
+    SseConnection stalled = connections.open("stalled", _ -> {
+    });
+    long now = System.currentTimeMillis();
+    ReflectionTestUtils.setField(slowButMoving, "writingSince", now - 1_000);
+    ReflectionTestUtils.setField(stalled, "writingSince", now - 120_000);
+
+    heartbeat.beat();
+
+    assertTrue(stalled.isClosed());
+    assertFalse(quiet.isClosed());
+    assertFalse(slowButMoving.isClosed());
+    assertEquals(1, quiet.queued());
+    assertEquals(1, slowButMoving.queued());
+    assertEquals(1, meterRegistry.counter("sse.connections.evicted").count());
+  }
+}
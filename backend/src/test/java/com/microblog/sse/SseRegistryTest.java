@@ -0,0 +1,54 @@
+package com.microblog.sse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class SseRegistryTest {
+
+  private final SseConnections connections = new SseConnections();
+  private final SseRegistry registry = new SseRegistry(2);
+  private long ids;
+
+  private SseConnection open(String userId) {
+    SseConnection connection = new SseConnection(++ids, userId, 8, connections, c -> registry.remove(userId, c));
+    registry.add(userId, connection);
+    return connection;
+  }
+
+  @Test
+  void keepsEveryTabOfAUser() {
+    SseConnection first = open("alice");
+    SseConnection second = open("alice");
+    open("bob");
+
+    assertEquals(List.of(first, second), registry.get("alice"));
+    assertEquals(1, registry.get("bob").size());
+  }
+
+  @Test
+  void closingOneTabLeavesTheOthers() {
+    SseConnection first = open("alice");
+    SseConnection second = open("alice");
+
+    first.close();
+
+    assertEquals(List.of(second), registry.get("alice"));
+    second.close();
+    assertFalse(registry.isConnected("alice"));
+  }
+
+  @Test
+  void closesTheOldestConnectionOverTheCap() {
+    SseConnection first = open("alice");
+    SseConnection second = open("alice");
+    SseConnection third = open("alice");
+
+    assertTrue(first.isClosed());
+    assertEquals(List.of(second, third), registry.get("alice"));
+  }
+}
@@ -0,0 +1,43 @@
+package com.microblog.timeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+public class TimelineMergeTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2025, 10, 15, 19, 31);
+
+  private TimelineEntry entry(String authorId, int minutesAgo) {
+    return new TimelineEntry(UUID.randomUUID(), authorId, NOW.minusMinutes(minutesAgo));
+  }
+
+  @Test
+  void mergesNewestFirstAcrossSources() {
+    TimelineEntry pushed1 = entry("a", 1);
+    TimelineEntry pushed2 = entry("b", 5);
+    TimelineEntry pulled1 = entry("celebrity", 3);
+    TimelineEntry pulled2 = entry("celebrity", 9);
+
+    List<TimelineEntry> merged = TimelineMerge.merge(
+        List.of(List.of(pushed1, pushed2), List.of(pulled1, pulled2)), 10);
+
+    assertEquals(List.of(pushed1, pulled1, pushed2, pulled2), merged);
+  }
+
+  @Test
+  void dropsDuplicatesAndStopsAtLimit() {
+    TimelineEntry shared = entry("celebrity", 2);
+    TimelineEntry older = entry("a", 4);
+    TimelineEntry oldest = entry("celebrity", 8);
+
+    List<TimelineEntry> merged = TimelineMerge.merge(
+        List.of(List.of(shared, older), List.of(shared, oldest)), 2);
+
+    assertEquals(List.of(shared, older), merged);
+  }
+}
@@ -0,0 +1,68 @@
+package com.microblog.timeline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+
+public class TimelineTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2025, 10, 15, 19, 31);
+
+  private TimelineEntry entry(String authorId, int minutesAgo) {
+    return new TimelineEntry(UUID.randomUUID(), authorId, NOW.minusMinutes(minutesAgo));
+  }
+
+  @Test
+  void keepsNewestFirstAndTrimsToCapacity() {
+    Timeline timeline = new Timeline(3, List.of(), true);
+    TimelineEntry oldest = entry("a", 30);
+    TimelineEntry middle = entry("b", 20);
+    TimelineEntry newest = entry("a", 10);
+
+    timeline.add(middle);
+    timeline.add(oldest);
+    timeline.add(newest);
+    assertEquals(List.of(newest, middle, oldest), timeline.slice(0, 10));
+    assertTrue(timeline.isComplete());
+
+    timeline.add(entry("c", 5));
+    assertEquals(3, timeline.size());
+    assertFalse(timeline.isComplete());
+    assertFalse(timeline.slice(0, 10).contains(oldest));
+  }
+
+  @Test
+  void ignoresDuplicatesAndRepairsOnRemoval() {
+    TimelineEntry first = entry("a", 10);
+    TimelineEntry second = entry("b", 20);
+    Timeline timeline = new Timeline(10, List.of(first, second), true);
+
+    timeline.add(first);
+    assertEquals(2, timeline.size());
+
+    timeline.removeAuthor("a");
+    assertEquals(List.of(second), timeline.slice(0, 10));
+
+    timeline.removePost(second.postId());
+    assertEquals(0, timeline.size());
+  }
+
+  @Test
+  void mergeKeepsATrimmedTimelineAPrefix() {
+    TimelineEntry newest = entry("a", 10);
+    TimelineEntry tail = entry("a", 30);
+    Timeline timeline = new Timeline(2, List.of(newest, tail, entry("a", 40)), false);
+
+    TimelineEntry between = entry("b", 20);
+    TimelineEntry older = entry("b", 35);
+    timeline.merge(List.of(between, older));
+    assertEquals(List.of(newest, between), timeline.slice(0, 10));
+    assertFalse(timeline.slice(0, 10).contains(older));
+  }
+}